@@ -0,0 +1,383 @@
+package de.wazilla.utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Asynchrones Lesen, Schreiben und Kopieren von Dateien auf Basis von {@link AsynchronousFileChannel}. Alle Methoden
+ * kehren sofort zurück und liefern ein {@link CompletableFuture}; es wird kein Thread für die Dauer einer Operation
+ * blockiert. Dadurch lassen sich tausende gleichzeitige Dateioperationen mit wenigen Threads abwickeln.
+ * <p>
+ * Die Daten werden blockweise über Puffer aus einem {@link ByteBufferPool} übertragen. Die Instanz ist thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class AsyncFiles {
+
+    private static final Set<StandardOpenOption> READ_OPTIONS = EnumSet.of(StandardOpenOption.READ);
+    private static final Set<StandardOpenOption> DEFAULT_WRITE_OPTIONS = EnumSet.of(StandardOpenOption.WRITE,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+    // lt. java.io.InputStream das größte zuverlässig allozierbare Array
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ExecutorService executorService;
+    private final ByteBufferPool bufferPool;
+
+    /**
+     * Verwendet den Default-Thread-Pool der JVM für asynchrone Channels und einen eigenen {@link ByteBufferPool}.
+     */
+    public AsyncFiles() {
+        this(null, new ByteBufferPool());
+    }
+
+    /**
+     * @param executorService Threads für die Completion-Handler oder <code>null</code> für den Default-Pool der JVM
+     * @param bufferPool      Pool für die Übertragungspuffer
+     */
+    public AsyncFiles(ExecutorService executorService, ByteBufferPool bufferPool) {
+        this.executorService = executorService;
+        this.bufferPool = Objects.requireNonNull(bufferPool, "bufferPool == null");
+    }
+
+    /**
+     * Liest die gesamte Datei.
+     *
+     * @param file die Datei
+     * @return ein {@link CompletableFuture} mit dem Inhalt der Datei
+     */
+    public CompletableFuture<byte[]> read(Path file) {
+        Objects.requireNonNull(file, "file == null");
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
+        try {
+            channel = open(file, READ_OPTIONS);
+            new ReadOperation(channel, result).start();
+        } catch (IOException | RuntimeException ex) {
+            closeQuietly(channel);
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Schreibt die Bytes in die Datei. Eine vorhandene Datei wird überschrieben.
+     *
+     * @param file  die Datei
+     * @param bytes der Inhalt
+     * @return ein {@link CompletableFuture} mit der Anzahl geschriebener Bytes
+     */
+    public CompletableFuture<Long> write(Path file, byte[] bytes) {
+        return write(file, bytes, DEFAULT_WRITE_OPTIONS.toArray(new OpenOption[0]));
+    }
+
+    /**
+     * Schreibt die Bytes in die Datei.
+     *
+     * @param file    die Datei
+     * @param bytes   der Inhalt
+     * @param options Optionen zum Öffnen der Datei (siehe {@link StandardOpenOption})
+     * @return ein {@link CompletableFuture} mit der Anzahl geschriebener Bytes
+     */
+    public CompletableFuture<Long> write(Path file, byte[] bytes, OpenOption... options) {
+        Objects.requireNonNull(file, "file == null");
+        Objects.requireNonNull(bytes, "bytes == null");
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        AsynchronousFileChannel channel = null;
+        try {
+            Set<OpenOption> openOptions = new HashSet<>(Arrays.asList(options));
+            openOptions.add(StandardOpenOption.WRITE);
+            long position = openOptions.contains(StandardOpenOption.APPEND) ? -1 : 0;
+            // APPEND wird von AsynchronousFileChannel nicht unterstützt, geschrieben wird dann ab dem Dateiende
+            openOptions.remove(StandardOpenOption.APPEND);
+            channel = open(file, openOptions);
+            if (position < 0) position = channel.size();
+            new WriteOperation(channel, bytes, position, result).start();
+        } catch (IOException | RuntimeException ex) {
+            closeQuietly(channel);
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    /**
+     * Kopiert die Datei. Eine vorhandene Zieldatei wird überschrieben.
+     *
+     * @param source die Quelldatei
+     * @param target die Zieldatei
+     * @return ein {@link CompletableFuture} mit der Anzahl kopierter Bytes
+     */
+    public CompletableFuture<Long> copy(Path source, Path target) {
+        Objects.requireNonNull(source, "source == null");
+        Objects.requireNonNull(target, "target == null");
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        AsynchronousFileChannel in = null;
+        AsynchronousFileChannel out = null;
+        try {
+            in = open(source, READ_OPTIONS);
+            out = open(target, DEFAULT_WRITE_OPTIONS);
+            new CopyOperation(in, out, result).start();
+        } catch (IOException | RuntimeException ex) {
+            closeQuietly(in);
+            closeQuietly(out);
+            result.completeExceptionally(ex);
+        }
+        return result;
+    }
+
+    // schließt einen beim synchronen Start bereits geöffneten Channel; null, wenn das Öffnen selbst fehlschlug
+    private static void closeQuietly(AsynchronousFileChannel channel) {
+        if (channel != null) Streams.close(channel);
+    }
+
+    private AsynchronousFileChannel open(Path file, Set<? extends OpenOption> options) throws IOException {
+        return AsynchronousFileChannel.open(file, options, executorService);
+    }
+
+    /**
+     * Liest blockweise in den Puffer und kopiert die Daten in das Ergebnis-Array.
+     */
+    private class ReadOperation implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel channel;
+        private final CompletableFuture<byte[]> result;
+        private final ByteBuffer buffer;
+        private byte[] data;
+        private int position;
+
+        ReadOperation(AsynchronousFileChannel channel, CompletableFuture<byte[]> result) {
+            this.channel = channel;
+            this.result = result;
+            this.buffer = bufferPool.acquire();
+        }
+
+        void start() {
+            try {
+                long size = channel.size();
+                if (size > MAX_ARRAY_SIZE) throw new IOException("File too large: " + size + " bytes");
+                data = new byte[(int) size];
+                readNext();
+            } catch (IOException | RuntimeException ex) {
+                failed(ex, null);
+            }
+        }
+
+        private void readNext() {
+            if (position == data.length) {
+                finish();
+                return;
+            }
+            buffer.clear();
+            if (buffer.remaining() > data.length - position) buffer.limit(data.length - position);
+            channel.read(buffer, position, null, this);
+        }
+
+        @Override
+        public void completed(Integer len, Void attachment) {
+            try {
+                if (len < 0) {
+                    // Datei ist seit dem Ermitteln der Größe geschrumpft
+                    data = Arrays.copyOf(data, position);
+                    finish();
+                    return;
+                }
+                buffer.flip();
+                buffer.get(data, position, len);
+                position += len;
+                readNext();
+            } catch (RuntimeException ex) {
+                failed(ex, attachment);
+            }
+        }
+
+        @Override
+        public void failed(Throwable ex, Void attachment) {
+            Streams.close(channel);
+            bufferPool.release(buffer);
+            result.completeExceptionally(ex);
+        }
+
+        private void finish() {
+            Streams.close(channel);
+            bufferPool.release(buffer);
+            result.complete(data);
+        }
+    }
+
+    /**
+     * Kopiert blockweise aus dem Array in den Puffer und schreibt diesen vollständig.
+     */
+    private class WriteOperation implements CompletionHandler<Integer, Void> {
+
+        private final AsynchronousFileChannel channel;
+        private final byte[] data;
+        private final long start;
+        private final CompletableFuture<Long> result;
+        private final ByteBuffer buffer;
+        private int offset;
+
+        WriteOperation(AsynchronousFileChannel channel, byte[] data, long start, CompletableFuture<Long> result) {
+            this.channel = channel;
+            this.data = data;
+            this.start = start;
+            this.result = result;
+            this.buffer = bufferPool.acquire();
+            this.buffer.limit(0);
+        }
+
+        void start() {
+            try {
+                writeNext();
+            } catch (RuntimeException ex) {
+                failed(ex, null);
+            }
+        }
+
+        private void writeNext() {
+            if (!buffer.hasRemaining()) {
+                if (offset == data.length) {
+                    finish();
+                    return;
+                }
+                buffer.clear();
+                int len = Math.min(buffer.remaining(), data.length - offset);
+                buffer.put(data, offset, len);
+                buffer.flip();
+                offset += len;
+            }
+            long position = start + offset - buffer.remaining();
+            channel.write(buffer, position, null, this);
+        }
+
+        @Override
+        public void completed(Integer len, Void attachment) {
+            try {
+                writeNext();
+            } catch (RuntimeException ex) {
+                failed(ex, attachment);
+            }
+        }
+
+        @Override
+        public void failed(Throwable ex, Void attachment) {
+            Streams.close(channel);
+            bufferPool.release(buffer);
+            result.completeExceptionally(ex);
+        }
+
+        private void finish() {
+            bufferPool.release(buffer);
+            try {
+                channel.close();
+                result.complete((long) data.length);
+            } catch (IOException ex) {
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+
+    /**
+     * Liest einen Block aus der Quelle, schreibt ihn vollständig in das Ziel und liest dann den nächsten Block.
+     */
+    private class CopyOperation {
+
+        private final AsynchronousFileChannel in;
+        private final AsynchronousFileChannel out;
+        private final CompletableFuture<Long> result;
+        private final ByteBuffer buffer;
+        private long position;
+
+        private final CompletionHandler<Integer, Void> readHandler = new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer len, Void attachment) {
+                if (len < 0) {
+                    finish();
+                    return;
+                }
+                buffer.flip();
+                writeNext();
+            }
+
+            @Override
+            public void failed(Throwable ex, Void attachment) {
+                fail(ex);
+            }
+        };
+
+        private final CompletionHandler<Integer, Void> writeHandler = new CompletionHandler<Integer, Void>() {
+            @Override
+            public void completed(Integer len, Void attachment) {
+                position += len;
+                if (buffer.hasRemaining()) {
+                    writeNext();
+                } else {
+                    readNext();
+                }
+            }
+
+            @Override
+            public void failed(Throwable ex, Void attachment) {
+                fail(ex);
+            }
+        };
+
+        CopyOperation(AsynchronousFileChannel in, AsynchronousFileChannel out, CompletableFuture<Long> result) {
+            this.in = in;
+            this.out = out;
+            this.result = result;
+            this.buffer = bufferPool.acquire();
+        }
+
+        void start() {
+            readNext();
+        }
+
+        private void readNext() {
+            try {
+                buffer.clear();
+                in.read(buffer, position, null, readHandler);
+            } catch (RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        private void writeNext() {
+            try {
+                out.write(buffer, position, null, writeHandler);
+            } catch (RuntimeException ex) {
+                fail(ex);
+            }
+        }
+
+        private void fail(Throwable ex) {
+            Streams.close(in, out);
+            bufferPool.release(buffer);
+            result.completeExceptionally(ex);
+        }
+
+        private void finish() {
+            bufferPool.release(buffer);
+            try {
+                in.close();
+                out.close();
+                result.complete(position);
+            } catch (IOException ex) {
+                Streams.close(in, out);
+                result.completeExceptionally(ex);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.wazilla.utils;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ein thread-safer Pool für {@link ByteBuffer} fester Größe. Ist der Pool leer, wird ein neuer Puffer erzeugt; bei
+ * der Rückgabe werden höchstens <code>maxPooled</code> Puffer aufbewahrt, der Rest wird dem Garbage Collector
+ * überlassen. Direkte Puffer lohnen sich insbesondere für Channel-I/O, da die JVM sonst intern kopiert.
+ *
+ * @author Ralf Lang
+ */
+public class ByteBufferPool {
+
+    private static final int DEFAULT_BUFFER_SIZE = Integer.getInteger(ByteBufferPool.class.getName() + ".defaultBufferSize", 64 * 1024);
+    private static final int DEFAULT_MAX_POOLED = Integer.getInteger(ByteBufferPool.class.getName() + ".maxPooled", 256);
+
+    private final int bufferSize;
+    private final int maxPooled;
+    private final boolean direct;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /**
+     * Erzeugt einen Pool für direkte Puffer mit den Default-Einstellungen.
+     */
+    public ByteBufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED, true);
+    }
+
+    /**
+     * @param bufferSize Größe der Puffer in Bytes
+     * @param maxPooled  maximale Anzahl aufbewahrter Puffer
+     * @param direct     <code>true</code> für direkte Puffer ({@link ByteBuffer#allocateDirect(int)})
+     */
+    public ByteBufferPool(int bufferSize, int maxPooled, boolean direct) {
+        if (bufferSize < 1) throw new IllegalArgumentException("bufferSize < 1!");
+        if (maxPooled < 0) throw new IllegalArgumentException("maxPooled < 0!");
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+        this.direct = direct;
+    }
+
+    /**
+     * @return einen leeren Puffer (position=0, limit=capacity)
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (buffer == null) return direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        pooled.decrementAndGet();
+        return buffer;
+    }
+
+    /**
+     * Gibt den Puffer an den Pool zurück. Danach darf er vom Aufrufer nicht mehr verwendet werden.
+     *
+     * @param buffer der Puffer, <code>null</code> wird ignoriert
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() != bufferSize || buffer.isDirect() != direct) return;
+        if (pooled.incrementAndGet() > maxPooled) {
+            pooled.decrementAndGet();
+            return;
+        }
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+}
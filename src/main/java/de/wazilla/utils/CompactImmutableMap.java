@@ -0,0 +1,158 @@
+package de.wazilla.utils;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Eine unveränderliche, speichersparende {@link Map}. Keys und Werte liegen in Einfüge-Reihenfolge in zwei Arrays
+ * (keine Entry-Objekte). Bis {@link #LINEAR_SCAN_MAX_SIZE} Einträge wird linear gesucht, bei größeren Maps über einen
+ * zusätzlichen <code>int[]</code>-Index mit Open Addressing. Die Iterationsreihenfolge entspricht der der Quell-Map.
+ * <p>
+ * Erzeugt wird sie über {@link Maps#immutableCopyOf(Map)} bzw. {@link Maps.MapBuilder#buildImmutable()}.
+ * Alle verändernden Methoden werfen eine {@link UnsupportedOperationException}.
+ * </p>
+ *
+ * @param <K> Typ der Keys
+ * @param <V> Typ der Werte
+ */
+final class CompactImmutableMap<K, V> extends AbstractMap<K, V> {
+
+    static final int LINEAR_SCAN_MAX_SIZE = 8;
+
+    private final Object[] keys;
+    private final Object[] values;
+    // Position + 1 des Eintrags in keys/values, 0 = frei; null bei linearer Suche
+    private final int[] index;
+    private final int mask;
+    private Set<Entry<K, V>> entrySet;
+
+    CompactImmutableMap(Map<? extends K, ? extends V> map) {
+        int size = map.size();
+        this.keys = new Object[size];
+        this.values = new Object[size];
+        int position = 0;
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            keys[position] = entry.getKey();
+            values[position] = entry.getValue();
+            position++;
+        }
+        if (position != size) throw new IllegalStateException("Map was modified during copy");
+        if (size <= LINEAR_SCAN_MAX_SIZE) {
+            this.index = null;
+            this.mask = 0;
+        } else {
+            this.index = new int[PrimitiveHashing.tableSize(size, 0.5F)];
+            this.mask = index.length - 1;
+            for (int i = 0; i < size; i++) {
+                int slot = hash(keys[i]) & mask;
+                while (index[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                index[slot] = i + 1;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        int position = indexOf(key);
+        return position >= 0 ? (V) values[position] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(Object key, V defaultValue) {
+        int position = indexOf(key);
+        return position >= 0 ? (V) values[position] : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        for (Object existing : values) {
+            if (Objects.equals(existing, value)) return true;
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (int i = 0; i < keys.length; i++) {
+            action.accept((K) keys[i], (V) values[i]);
+        }
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        if (entrySet == null) entrySet = new EntrySet();
+        return entrySet;
+    }
+
+    private int indexOf(Object key) {
+        if (index == null) {
+            for (int i = 0; i < keys.length; i++) {
+                if (Objects.equals(keys[i], key)) return i;
+            }
+            return -1;
+        }
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = index[slot]) != 0) {
+            if (Objects.equals(keys[entry - 1], key)) return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(Object key) {
+        return PrimitiveHashing.mix(key == null ? 0 : key.hashCode());
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            return new Iterator<Entry<K, V>>() {
+
+                private int position;
+
+                @Override
+                public boolean hasNext() {
+                    return position < keys.length;
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public Entry<K, V> next() {
+                    if (!hasNext()) throw new NoSuchElementException();
+                    Entry<K, V> entry = new SimpleImmutableEntry<>((K) keys[position], (V) values[position]);
+                    position++;
+                    return entry;
+                }
+            };
+        }
+    }
+
+}
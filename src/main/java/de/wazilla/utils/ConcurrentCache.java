@@ -0,0 +1,406 @@
+package de.wazilla.utils;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Ein thread-safer, größenbeschränkter Cache, z.B. für XPath-Ergebnisse, aufgelöste Konfigurationswerte oder
+ * Datenbank-Lookups.
+ * <p>
+ * Die Einträge liegen in einer {@link ConcurrentHashMap}, Lesezugriffe kommen daher ohne Lock aus. Ein Lesezugriff
+ * setzt lediglich ein "referenced"-Bit am Eintrag. Wird die maximale Größe bzw. das maximale Gewicht überschritten,
+ * verdrängt ein CLOCK-Algorithmus (Second Chance, eine LRU-Annäherung) Einträge, die seit dem letzten Durchlauf nicht
+ * gelesen wurden. Optional verfallen Einträge eine feste Zeit nach dem Schreiben (TTL).
+ * </p>
+ * <p>
+ * Treffer, Fehlzugriffe, Verdrängungen und abgelaufene Einträge werden gezählt, siehe {@link #stats()}.
+ * <code>null</code> ist weder als Key noch als Wert erlaubt.
+ * </p>
+ *
+ * <pre>
+ * ConcurrentCache&lt;String, String&gt; cache = ConcurrentCache.&lt;String, String&gt;builder()
+ *     .withMaximumSize(10_000)
+ *     .withExpireAfterWrite(Duration.ofMinutes(5))
+ *     .build();
+ * String value = cache.get(key, this::resolve);
+ * </pre>
+ *
+ * @param <K> Typ der Keys
+ * @param <V> Typ der Werte
+ * @author Ralf Lang
+ */
+public class ConcurrentCache<K, V> {
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final ConcurrentHashMap<K, Loading<V>> loading = new ConcurrentHashMap<>();
+    private final Queue<Node<K, V>> clock = new ConcurrentLinkedQueue<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final AtomicLong weight = new AtomicLong();
+    private final AtomicLong deadNodes = new AtomicLong();
+    private final long maximumWeight;
+    private final ToLongBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final LongSupplier ticker;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    private ConcurrentCache(Builder<K, V> builder) {
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.ticker = builder.ticker;
+        this.map = new ConcurrentHashMap<>(builder.initialCapacity);
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @return den Wert zum Key oder <code>null</code>, wenn keiner vorhanden oder er abgelaufen ist
+     */
+    public V get(K key) {
+        Objects.requireNonNull(key, "key == null");
+        Node<K, V> node = map.get(key);
+        if (node != null && !isExpired(node, ticker.getAsLong())) {
+            node.markReferenced();
+            hits.increment();
+            return node.value;
+        }
+        if (node != null) expire(node);
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Gibt den Wert zum Key zurück. Ist keiner vorhanden, wird er mit dem Loader erzeugt und gespeichert. Gleichzeitige
+     * Aufrufe für denselben Key warten auf den ersten Loader; andere Keys werden nicht blockiert. Der Loader läuft
+     * außerhalb der Map und darf den Cache daher auch selbst verwenden, nur nicht für denselben Key.
+     *
+     * @param key    der Key
+     * @param loader erzeugt den Wert; liefert er <code>null</code>, wird nichts gespeichert
+     * @return den vorhandenen oder geladenen Wert
+     * @throws IllegalStateException wenn der Loader rekursiv denselben Key lädt
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        Objects.requireNonNull(key, "key == null");
+        Objects.requireNonNull(loader, "loader == null");
+        Node<K, V> node = map.get(key);
+        if (node != null && !isExpired(node, ticker.getAsLong())) {
+            node.markReferenced();
+            hits.increment();
+            return node.value;
+        }
+        misses.increment();
+        Loading<V> loading = new Loading<>();
+        Loading<V> running = this.loading.putIfAbsent(key, loading);
+        if (running != null) {
+            if (running.owner == Thread.currentThread()) throw new IllegalStateException("Recursive load of key " + key);
+            return running.await();
+        }
+        try {
+            // ein anderer Loader kann seit map.get() fertig geworden sein
+            node = map.get(key);
+            V value;
+            if (node != null && !isExpired(node, ticker.getAsLong())) {
+                value = node.value;
+            } else {
+                if (node != null) expire(node);
+                value = loader.apply(key);
+                if (value != null) put(key, value);
+            }
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            loading.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            this.loading.remove(key, loading);
+        }
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(key, "key == null");
+        Objects.requireNonNull(value, "value == null");
+        Node<K, V> node = newNode(key, value);
+        Node<K, V> previous = map.put(key, node);
+        if (previous != null) unlink(previous);
+        link(node);
+    }
+
+    public void invalidate(K key) {
+        Objects.requireNonNull(key, "key == null");
+        Node<K, V> node = map.remove(key);
+        if (node != null) unlink(node);
+    }
+
+    public void invalidateAll() {
+        for (K key : map.keySet()) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * @return die Anzahl der Einträge (inkl. abgelaufener, noch nicht entfernter Einträge)
+     */
+    public long size() {
+        return map.mappingCount();
+    }
+
+    /**
+     * @return die Summe der Gewichte aller Einträge (ohne Weigher: deren Anzahl)
+     */
+    public long weight() {
+        return weight.get();
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private Node<K, V> newNode(K key, V value) {
+        long nodeWeight = weigher.applyAsLong(key, value);
+        if (nodeWeight < 0) throw new IllegalArgumentException("weight < 0 for key " + key);
+        long expiresAt = expireAfterWriteNanos > 0 ? ticker.getAsLong() + expireAfterWriteNanos : Long.MAX_VALUE;
+        return new Node<>(key, value, nodeWeight, expiresAt);
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterWriteNanos > 0 && now - node.expiresAt >= 0;
+    }
+
+    private void expire(Node<K, V> node) {
+        if (map.remove(node.key, node)) {
+            unlink(node);
+            expirations.increment();
+        }
+    }
+
+    private void link(Node<K, V> node) {
+        weight.addAndGet(node.weight);
+        clock.add(node);
+        if (isEvictionNeeded()) evict();
+    }
+
+    private boolean isEvictionNeeded() {
+        return weight.get() > maximumWeight || deadNodes.get() > Math.max(64, map.mappingCount());
+    }
+
+    private void unlink(Node<K, V> node) {
+        if (node.kill()) {
+            weight.addAndGet(-node.weight);
+            deadNodes.incrementAndGet();
+        }
+    }
+
+    /**
+     * CLOCK: Einträge mit gesetztem "referenced"-Bit bekommen eine zweite Chance und wandern ans Ende, alle anderen
+     * (sowie abgelaufene) werden entfernt. Bereits entfernte Einträge werden dabei aus der Queue aufgeräumt.
+     */
+    private void evict() {
+        evictionLock.lock();
+        try {
+            long now = ticker.getAsLong();
+            // begrenzt die Anzahl der Durchläufe, falls parallel ersetzte Einträge noch nicht entfernt wurden
+            long remainingScans = 2 * (map.mappingCount() + deadNodes.get()) + 16;
+            Node<K, V> node;
+            while (isEvictionNeeded() && remainingScans-- > 0 && (node = clock.poll()) != null) {
+                boolean expired = isExpired(node, now);
+                if (!node.isAlive()) {
+                    deadNodes.decrementAndGet();
+                } else if (!expired && node.clearReferenced()) {
+                    clock.add(node);
+                } else if (map.remove(node.key, node)) {
+                    unlink(node);
+                    deadNodes.decrementAndGet();
+                    if (expired) {
+                        expirations.increment();
+                    } else {
+                        evictions.increment();
+                    }
+                } else {
+                    // wurde zwischenzeitlich ersetzt oder entfernt und wird gleich als "tot" markiert
+                    clock.add(node);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private static final class Node<K, V> {
+
+        final K key;
+        final V value;
+        final long weight;
+        final long expiresAt;
+        private volatile boolean referenced;
+        private volatile boolean alive = true;
+
+        Node(K key, V value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        void markReferenced() {
+            // nur schreiben, wenn nötig, um unnötige Cache-Line-Invalidierungen zu vermeiden
+            if (!referenced) referenced = true;
+        }
+
+        boolean clearReferenced() {
+            if (!referenced) return false;
+            referenced = false;
+            return true;
+        }
+
+        boolean isAlive() {
+            return alive;
+        }
+
+        synchronized boolean kill() {
+            if (!alive) return false;
+            alive = false;
+            return true;
+        }
+    }
+
+    /**
+     * Ein laufender Aufruf des Loaders, auf den gleichzeitige Aufrufe für denselben Key warten.
+     */
+    private static final class Loading<V> extends CompletableFuture<V> {
+
+        final Thread owner = Thread.currentThread();
+
+        V await() {
+            try {
+                return join();
+            } catch (CompletionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw ex;
+            }
+        }
+    }
+
+    /**
+     * Unveränderliche Momentaufnahme der Statistik eines {@link ConcurrentCache}.
+     */
+    public static final class CacheStats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long expirationCount;
+
+        CacheStats(long hitCount, long missCount, long evictionCount, long expirationCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+        }
+
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        public long getMissCount() {
+            return missCount;
+        }
+
+        public long getEvictionCount() {
+            return evictionCount;
+        }
+
+        public long getExpirationCount() {
+            return expirationCount;
+        }
+
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1.0 : (double) hitCount / requests;
+        }
+
+        @Override
+        public String toString() {
+            return "CacheStats[hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+                    + ", expirations=" + expirationCount + "]";
+        }
+    }
+
+    public static class Builder<K, V> {
+
+        private long maximumWeight = Long.MAX_VALUE;
+        private ToLongBiFunction<? super K, ? super V> weigher = (key, value) -> 1;
+        private long expireAfterWriteNanos;
+        private LongSupplier ticker = System::nanoTime;
+        private int initialCapacity = 16;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maximumSize maximale Anzahl an Einträgen
+         * @return diesen Builder
+         */
+        public Builder<K, V> withMaximumSize(long maximumSize) {
+            if (maximumSize < 0) throw new IllegalArgumentException("maximumSize < 0!");
+            this.maximumWeight = maximumSize;
+            this.weigher = (key, value) -> 1;
+            return this;
+        }
+
+        /**
+         * @param maximumWeight maximale Summe der Gewichte aller Einträge
+         * @param weigher       ermittelt das Gewicht eines Eintrags (z.B. dessen geschätzte Größe in Bytes)
+         * @return diesen Builder
+         */
+        public Builder<K, V> withMaximumWeight(long maximumWeight, ToLongBiFunction<? super K, ? super V> weigher) {
+            if (maximumWeight < 0) throw new IllegalArgumentException("maximumWeight < 0!");
+            this.maximumWeight = maximumWeight;
+            this.weigher = Objects.requireNonNull(weigher, "weigher == null");
+            return this;
+        }
+
+        public Builder<K, V> withExpireAfterWrite(Duration duration) {
+            if (duration.isNegative() || duration.isZero()) throw new IllegalArgumentException("duration <= 0!");
+            this.expireAfterWriteNanos = duration.toNanos();
+            return this;
+        }
+
+        public Builder<K, V> withInitialCapacity(int initialCapacity) {
+            if (initialCapacity < 0) throw new IllegalArgumentException("initialCapacity < 0!");
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * @param ticker Zeitquelle in Nanosekunden (Default {@link System#nanoTime()}), z.B. für Tests
+         * @return diesen Builder
+         */
+        public Builder<K, V> withTicker(LongSupplier ticker) {
+            this.ticker = Objects.requireNonNull(ticker, "ticker == null");
+            return this;
+        }
+
+        public ConcurrentCache<K, V> build() {
+            return new ConcurrentCache<>(this);
+        }
+    }
+
+}
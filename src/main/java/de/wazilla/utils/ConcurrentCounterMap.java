@@ -0,0 +1,304 @@
+package de.wazilla.utils;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Zähler pro Key für viele gleichzeitig zählende Threads (z.B. Fehlercodes, XPath-Ausdrücke, Konfigurations-Keys).
+ * Jeder Key hat einen {@link LongAdder}, dessen Zellen (höchstens eine pro CPU) Konflikte auf "heißen" Keys
+ * vermeiden; der Speicher pro Key ist dadurch begrenzt. Keys, die seit dem letzten {@link #snapshotAndReset()} nicht
+ * mehr gezählt wurden, werden dabei entfernt.
+ * <p>
+ * Optional werden die häufigsten Keys mit einem Space-Saving-Sketch ermittelt (siehe {@link #topK()}). Wie beim
+ * {@link LongAdder} gibt es mehrere Teil-Sketches (Stripes), die Threads nach ihrer Id zugeordnet werden, so dass
+ * parallel zählende Threads sich auch bei "heißen" Keys nicht gegenseitig sperren. Jeder Stripe hält höchstens
+ * <code>k</code> Keys in einem Min-Heap; ein neuer Key kostet damit O(log k). Der Sketch ist für Fälle gedacht, in
+ * denen die Menge der Keys unbeschränkt ist, die Rangliste aber nur die größten Zähler benötigt.
+ * </p>
+ * Erzeugt wird die Map über {@link Maps#newCounterMap()} bzw. {@link Maps#newCounterMap(int)}.
+ *
+ * @param <K> Typ der Keys
+ * @author Ralf Lang
+ */
+public class ConcurrentCounterMap<K> {
+
+    private static final int STRIPES = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    // Abstand der Stripes in inFlight, damit sie nicht auf derselben Cache-Line liegen
+    private static final int PADDING = 8;
+
+    private final ConcurrentHashMap<K, Counter> counters = new ConcurrentHashMap<>();
+    // laufende add()-Aufrufe pro Epoche (gerade/ungerade) und Stripe, siehe snapshotAndReset()
+    private final AtomicLongArray[] inFlight = {new AtomicLongArray(STRIPES * PADDING), new AtomicLongArray(STRIPES * PADDING)};
+    private volatile int epoch;
+    private final int topK;
+    private final SpaceSaving<K>[] sketches;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ConcurrentCounterMap(int topK) {
+        if (topK < 0) throw new IllegalArgumentException("topK < 0!");
+        this.topK = topK;
+        if (topK > 0) {
+            this.sketches = new SpaceSaving[STRIPES];
+            for (int i = 0; i < sketches.length; i++) {
+                sketches[i] = new SpaceSaving<>(topK);
+            }
+        } else {
+            this.sketches = null;
+        }
+    }
+
+    public void increment(K key) {
+        add(key, 1);
+    }
+
+    public void add(K key, long delta) {
+        Objects.requireNonNull(key, "key == null");
+        int stripe = PrimitiveHashing.mix(Thread.currentThread().getId()) & (STRIPES - 1);
+        while (true) {
+            int current = epoch;
+            AtomicLongArray active = inFlight[current & 1];
+            active.incrementAndGet(stripe * PADDING);
+            try {
+                // hat snapshotAndReset() die Epoche gewechselt, wartet es evtl. nicht mehr auf diesen Aufruf
+                if (epoch != current) continue;
+                Counter counter = counters.get(key);
+                if (counter == null) counter = counters.computeIfAbsent(key, k -> new Counter());
+                counter.value.add(delta);
+                break;
+            } finally {
+                active.decrementAndGet(stripe * PADDING);
+            }
+        }
+        if (sketches != null) sketches[stripe & (sketches.length - 1)].add(key, delta);
+    }
+
+    /**
+     * @return den aktuellen Zählerstand des Keys oder 0
+     */
+    public long sum(K key) {
+        Counter counter = counters.get(key);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    /**
+     * @return die Summe über alle Keys
+     */
+    public long sum() {
+        long sum = 0;
+        for (Counter counter : counters.values()) {
+            sum += counter.sum();
+        }
+        return sum;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * @return die aktuellen Zählerstände (nicht atomar über alle Keys)
+     */
+    public Map<K, Long> snapshot() {
+        Map<K, Long> snapshot = new HashMap<>((int) (counters.size() / 0.75F) + 1);
+        counters.forEach((key, counter) -> snapshot.put(key, counter.sum()));
+        return snapshot;
+    }
+
+    /**
+     * Liefert die Zählerstände und setzt sie zurück. Die {@link LongAdder} selbst werden dabei nicht zurückgesetzt,
+     * sondern der gelesene Stand wird als neue Basis gemerkt; Zählungen, die parallel erfolgen, landen daher entweder
+     * in diesem oder im nächsten Snapshot und gehen nicht verloren. Keys ohne Zählung seit dem letzten Aufruf werden
+     * entfernt; in diesem Fall wartet der Aufruf, bis alle zu diesem Zeitpunkt laufenden {@link #add(Object, long)}
+     * abgeschlossen sind, und übernimmt deren Zählungen noch in diesen Snapshot.
+     *
+     * @return die Zählerstände seit dem letzten Zurücksetzen, ohne Keys mit Zählerstand 0
+     */
+    public synchronized Map<K, Long> snapshotAndReset() {
+        Map<K, Long> snapshot = new HashMap<>((int) (counters.size() / 0.75F) + 1);
+        Map<K, Counter> removed = new HashMap<>();
+        counters.forEach((key, counter) -> {
+            long total = counter.value.sum();
+            if (total == counter.base) {
+                if (counters.remove(key, counter)) removed.put(key, counter);
+                return;
+            }
+            snapshot.merge(key, total - counter.base, Long::sum);
+            counter.base = total;
+        });
+        if (!removed.isEmpty()) {
+            // Epoche wechseln und warten, bis kein add() mehr einen entfernten Zähler halten kann
+            int previous = epoch;
+            epoch = previous + 1;
+            AtomicLongArray active = inFlight[previous & 1];
+            for (int i = 0; i < STRIPES; i++) {
+                while (active.get(i * PADDING) != 0) {
+                    Thread.yield();
+                }
+            }
+            removed.forEach((key, counter) -> {
+                long late = counter.value.sum() - counter.base;
+                if (late != 0) snapshot.merge(key, late, Long::sum);
+            });
+        }
+        if (sketches != null) {
+            for (SpaceSaving<K> sketch : sketches) {
+                sketch.clear();
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Liefert die (geschätzt) häufigsten Keys absteigend nach Zählerstand. Die Stände der Stripes werden pro Key
+     * addiert; fehlt ein Key in einem vollen Stripe, wird dessen kleinster Zähler angenommen. Der Zählerstand
+     * überschätzt den tatsächlichen Wert daher höchstens um die Summe der kleinsten Zähler aller Stripes.
+     *
+     * @return die häufigsten Keys, höchstens <code>k</code> Einträge
+     * @throws IllegalStateException wenn die Map ohne Top-K erzeugt wurde
+     */
+    public List<Map.Entry<K, Long>> topK() {
+        if (sketches == null) throw new IllegalStateException("top-k tracking is not enabled");
+        Map<K, Long> estimates = new HashMap<>();
+        long[] minimums = new long[sketches.length];
+        List<Map<K, Long>> stripes = new ArrayList<>(sketches.length);
+        for (int i = 0; i < sketches.length; i++) {
+            Map<K, Long> stripe = new HashMap<>();
+            minimums[i] = sketches[i].copyTo(stripe);
+            stripes.add(stripe);
+            stripe.forEach((key, count) -> estimates.merge(key, count, Long::sum));
+        }
+        // fehlt ein Key in einem vollen Stripe, kann er dort höchstens den kleinsten Zähler erreicht haben
+        List<Map.Entry<K, Long>> top = new ArrayList<>(estimates.size());
+        estimates.forEach((key, count) -> {
+            long estimate = count;
+            for (int i = 0; i < minimums.length; i++) {
+                if (!stripes.get(i).containsKey(key)) estimate += minimums[i];
+            }
+            top.add(new AbstractMap.SimpleImmutableEntry<>(key, estimate));
+        });
+        top.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return top.size() > topK ? new ArrayList<>(top.subList(0, topK)) : top;
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    private static final class Counter {
+
+        final LongAdder value = new LongAdder();
+        // Stand beim letzten snapshotAndReset(), nur dort geschrieben
+        volatile long base;
+
+        long sum() {
+            return value.sum() - base;
+        }
+    }
+
+    /**
+     * Space-Saving (Metwally et al.): höchstens <code>capacity</code> überwachte Keys; ein neuer Key ersetzt den Key
+     * mit dem kleinsten Zähler und übernimmt dessen Stand als Fehler. Die Zähler liegen in einem Min-Heap, dessen
+     * Positionen pro Key indiziert sind.
+     */
+    private static final class SpaceSaving<K> {
+
+        private final Object[] keys;
+        private final long[] counts;
+        private final Map<K, Integer> positions;
+        private int size;
+
+        SpaceSaving(int capacity) {
+            this.keys = new Object[capacity];
+            this.counts = new long[capacity];
+            this.positions = new HashMap<>((int) (capacity / 0.75F) + 1);
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized void add(K key, long delta) {
+            Integer position = positions.get(key);
+            int i;
+            if (position != null) {
+                i = position;
+            } else if (size < keys.length) {
+                i = size++;
+                keys[i] = key;
+                positions.put(key, i);
+            } else {
+                i = 0;
+                positions.remove((K) keys[0]);
+                keys[0] = key;
+                positions.put(key, 0);
+            }
+            counts[i] += delta;
+            // ein neu angehängter Key steht als Blatt ggf. über einem größeren Elternknoten
+            siftDown(siftUp(i));
+        }
+
+        synchronized void clear() {
+            Arrays.fill(keys, 0, size, null);
+            Arrays.fill(counts, 0, size, 0);
+            positions.clear();
+            size = 0;
+        }
+
+        /**
+         * @return den kleinsten Zähler, wenn der Stripe voll ist, sonst 0
+         */
+        @SuppressWarnings("unchecked")
+        synchronized long copyTo(Map<K, Long> target) {
+            for (int i = 0; i < size; i++) {
+                target.put((K) keys[i], counts[i]);
+            }
+            return size == keys.length ? counts[0] : 0;
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int smallest = i;
+                int left = 2 * i + 1;
+                int right = left + 1;
+                if (left < size && counts[left] < counts[smallest]) smallest = left;
+                if (right < size && counts[right] < counts[smallest]) smallest = right;
+                if (smallest == i) return;
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        /**
+         * @return die neue Position
+         */
+        private int siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (counts[parent] <= counts[i]) break;
+                swap(i, parent);
+                i = parent;
+            }
+            return i;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void swap(int i, int j) {
+            Object key = keys[i];
+            keys[i] = keys[j];
+            keys[j] = key;
+            long count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+            positions.put((K) keys[i], i);
+            positions.put((K) keys[j], j);
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+package de.wazilla.utils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Zählt auftretende Exceptions nach ihrem {@link Throwables#fingerprint(Throwable) Fingerabdruck} und rendert den
+ * vollständigen Stacktrace (per {@link StackTraceRenderer}) pro Fingerabdruck höchstens einmal pro Zeitfenster.
+ * Typische Verwendung beim Logging:
+ * <pre>
+ * String trace = aggregator.record(ex);
+ * if (trace != null) log.error(trace);
+ * </pre>
+ * Damit der Speicher begrenzt bleibt, werden höchstens {@link #withMaxFingerprints(int) maxFingerprints}
+ * Fingerabdrücke gezählt; darüber hinaus wird jeder neue Fehler gerendert, aber nicht gezählt. Die Klasse ist
+ * thread-safe.
+ *
+ * @author Ralf Lang
+ */
+public class ExceptionAggregator {
+
+    private static final long NEVER = Long.MIN_VALUE;
+
+    private final ConcurrentHashMap<Long, Occurrence> occurrences = new ConcurrentHashMap<>();
+    private long windowNanos = Duration.ofMinutes(1).toNanos();
+    private int maxFingerprints = 10_000;
+    private StackTraceRenderer renderer = new StackTraceRenderer();
+    private LongSupplier ticker = System::nanoTime;
+
+    /**
+     * @param window Zeitfenster, in dem ein Stacktrace pro Fingerabdruck nur einmal gerendert wird (Default 1 Minute)
+     */
+    public ExceptionAggregator withWindow(Duration window) {
+        Objects.requireNonNull(window, "window == null");
+        if (window.isNegative()) throw new IllegalArgumentException("window < 0!");
+        this.windowNanos = window.toNanos();
+        return this;
+    }
+
+    public ExceptionAggregator withMaxFingerprints(int maxFingerprints) {
+        if (maxFingerprints < 0) throw new IllegalArgumentException("maxFingerprints < 0!");
+        this.maxFingerprints = maxFingerprints;
+        return this;
+    }
+
+    public ExceptionAggregator withRenderer(StackTraceRenderer renderer) {
+        this.renderer = Objects.requireNonNull(renderer, "renderer == null");
+        return this;
+    }
+
+    /**
+     * @param ticker Zeitquelle in Nanosekunden (Default {@link System#nanoTime()})
+     */
+    public ExceptionAggregator withTicker(LongSupplier ticker) {
+        this.ticker = Objects.requireNonNull(ticker, "ticker == null");
+        return this;
+    }
+
+    /**
+     * Zählt das {@link Throwable}.
+     *
+     * @return den gerenderten Stacktrace, wenn er im aktuellen Zeitfenster noch nicht ausgegeben wurde, sonst
+     * <code>null</code>. Wurden seit der letzten Ausgabe weitere Vorkommen unterdrückt, steht deren Anzahl in der
+     * ersten Zeile.
+     */
+    public String record(Throwable thrown) {
+        if (thrown == null) return null;
+        Long fingerprint = Throwables.fingerprint(thrown);
+        Occurrence occurrence = occurrences.get(fingerprint);
+        if (occurrence == null) {
+            if (occurrences.size() >= maxFingerprints) return renderer.render(thrown);
+            occurrence = occurrences.computeIfAbsent(fingerprint, key -> new Occurrence());
+        }
+        occurrence.count.increment();
+        long now = ticker.getAsLong();
+        long lastRendered = occurrence.lastRendered.get();
+        if ((lastRendered == NEVER || now - lastRendered >= windowNanos)
+                && occurrence.lastRendered.compareAndSet(lastRendered, now)) {
+            long suppressed = occurrence.suppressed.getAndSet(0);
+            String trace = renderer.render(thrown);
+            if (suppressed == 0) return trace;
+            return "(" + suppressed + " occurrences suppressed since last report)" + System.lineSeparator() + trace;
+        }
+        occurrence.suppressed.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @return wie oft ein {@link Throwable} mit demselben Fingerabdruck bisher gezählt wurde
+     */
+    public long getCount(Throwable thrown) {
+        Occurrence occurrence = occurrences.get(Throwables.fingerprint(thrown));
+        return occurrence != null ? occurrence.count.sum() : 0;
+    }
+
+    /**
+     * @return die Anzahl pro Fingerabdruck
+     */
+    public Map<Long, Long> getCounts() {
+        Map<Long, Long> counts = new HashMap<>();
+        occurrences.forEach((fingerprint, occurrence) -> counts.put(fingerprint, occurrence.count.sum()));
+        return counts;
+    }
+
+    public void clear() {
+        occurrences.clear();
+    }
+
+    private static final class Occurrence {
+
+        final LongAdder count = new LongAdder();
+        final AtomicLong lastRendered = new AtomicLong(NEVER);
+        final AtomicLong suppressed = new AtomicLong();
+    }
+
+}
@@ -0,0 +1,253 @@
+package de.wazilla.utils;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+
+/**
+ * Sortiert die Zeilen von Dateien, die nicht in den Heap passen. Die Eingabe wird in Läufe ("Runs") begrenzter
+ * Größe zerlegt, die im Speicher parallel sortiert ({@link Arrays#parallelSort(Object[], Comparator)}) und in
+ * temporäre Dateien geschrieben werden. Anschließend werden die Läufe mit einem k-Wege-Merge zusammengeführt; dabei
+ * wird pro Lauf nur ein Lesepuffer benötigt. Gibt es mehr Läufe als {@link #withMaxFanIn(int)}, wird in mehreren
+ * Durchgängen gemergt.
+ *
+ * <pre>
+ * new ExternalSorter()
+ *     .withComparator(String.CASE_INSENSITIVE_ORDER)
+ *     .withDistinct(true)
+ *     .sort(input, output);
+ * </pre>
+ *
+ * @author Ralf Lang
+ */
+public class ExternalSorter {
+
+    private static final long DEFAULT_MAX_RUN_SIZE = Long.getLong(ExternalSorter.class.getName() + ".maxRunSize", 64L * 1024 * 1024);
+    private static final int DEFAULT_MAX_FAN_IN = Integer.getInteger(ExternalSorter.class.getName() + ".maxFanIn", 64);
+    private static final int MERGE_BUFFER_SIZE = 64 * 1024;
+    // grobe Schätzung des Heap-Verbrauchs einer Zeile: String-Objekt, Array-Header und Referenz in der Liste
+    private static final int LINE_OVERHEAD = 64;
+
+    private Comparator<? super String> comparator = Comparator.naturalOrder();
+    private boolean distinct;
+    private long maxRunSize = DEFAULT_MAX_RUN_SIZE;
+    private int maxFanIn = DEFAULT_MAX_FAN_IN;
+    private Charset charset = StandardCharsets.UTF_8;
+    private Path tempDirectory;
+
+    public ExternalSorter withComparator(Comparator<? super String> comparator) {
+        this.comparator = Objects.requireNonNull(comparator, "comparator == null");
+        return this;
+    }
+
+    /**
+     * @param distinct <code>true</code>, wenn Zeilen, die laut Comparator gleich sind, nur einmal ausgegeben werden sollen
+     * @return diese Instanz
+     */
+    public ExternalSorter withDistinct(boolean distinct) {
+        this.distinct = distinct;
+        return this;
+    }
+
+    /**
+     * @param maxRunSize geschätzter, maximaler Heap-Verbrauch (in Bytes) eines im Speicher sortierten Laufs
+     * @return diese Instanz
+     */
+    public ExternalSorter withMaxRunSize(long maxRunSize) {
+        if (maxRunSize < 1) throw new IllegalArgumentException("maxRunSize < 1!");
+        this.maxRunSize = maxRunSize;
+        return this;
+    }
+
+    /**
+     * @param maxFanIn maximale Anzahl an Läufen, die in einem Durchgang gemergt (und gleichzeitig geöffnet) werden
+     * @return diese Instanz
+     */
+    public ExternalSorter withMaxFanIn(int maxFanIn) {
+        if (maxFanIn < 2) throw new IllegalArgumentException("maxFanIn < 2!");
+        this.maxFanIn = maxFanIn;
+        return this;
+    }
+
+    public ExternalSorter withCharset(Charset charset) {
+        this.charset = Objects.requireNonNull(charset, "charset == null");
+        return this;
+    }
+
+    /**
+     * @param tempDirectory Verzeichnis für die Läufe oder <code>null</code> für das Standard-Temp-Verzeichnis
+     * @return diese Instanz
+     */
+    public ExternalSorter withTempDirectory(Path tempDirectory) {
+        this.tempDirectory = tempDirectory;
+        return this;
+    }
+
+    /**
+     * Sortiert die Zeilen der Eingabedatei in die Ausgabedatei.
+     *
+     * @param input  die Eingabedatei
+     * @param output die Ausgabedatei (wird ggf. überschrieben)
+     * @return die Anzahl der ausgegebenen Zeilen
+     * @throws IOException wenn nicht gelesen oder geschrieben werden konnte
+     */
+    public long sort(Path input, Path output) throws IOException {
+        Objects.requireNonNull(input, "input == null");
+        Objects.requireNonNull(output, "output == null");
+        return sort(Files.newInputStream(input), output);
+    }
+
+    /**
+     * Sortiert die Zeilen des Streams in die Ausgabedatei. Der Stream wird anschließend geschlossen.
+     *
+     * @param in     der {@link InputStream} mit den Zeilen
+     * @param output die Ausgabedatei (wird ggf. überschrieben)
+     * @return die Anzahl der ausgegebenen Zeilen
+     * @throws IOException wenn nicht gelesen oder geschrieben werden konnte
+     */
+    public long sort(InputStream in, Path output) throws IOException {
+        Objects.requireNonNull(output, "output == null");
+        List<Path> tempFiles = new ArrayList<>();
+        try {
+            List<Path> runs = createRuns(in, tempFiles);
+            while (runs.size() > maxFanIn) {
+                List<Path> merged = new ArrayList<>();
+                for (int from = 0; from < runs.size(); from += maxFanIn) {
+                    List<Path> group = runs.subList(from, Math.min(from + maxFanIn, runs.size()));
+                    Path run = createTempFile(tempFiles);
+                    merged.add(run);
+                    merge(group, run);
+                    for (Path path : group) {
+                        Files.deleteIfExists(path);
+                    }
+                }
+                runs = merged;
+            }
+            return merge(runs, output);
+        } finally {
+            for (Path path : tempFiles) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private List<Path> createRuns(InputStream in, List<Path> tempFiles) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        List<String> lines = new ArrayList<>();
+        long size = 0;
+        try (LineReader reader = new LineReader(in, charset)) {
+            CharSequence line;
+            while ((line = reader.next()) != null) {
+                lines.add(line.toString());
+                size += 2L * line.length() + LINE_OVERHEAD;
+                if (size >= maxRunSize) {
+                    runs.add(writeRun(lines, tempFiles));
+                    lines.clear();
+                    size = 0;
+                }
+            }
+        }
+        if (!lines.isEmpty() || runs.isEmpty()) runs.add(writeRun(lines, tempFiles));
+        return runs;
+    }
+
+    private Path writeRun(List<String> lines, List<Path> tempFiles) throws IOException {
+        String[] sorted = lines.toArray(new String[0]);
+        Arrays.parallelSort(sorted, comparator);
+        Path run = createTempFile(tempFiles);
+        try (Writer writer = Files.newBufferedWriter(run, charset)) {
+            String previous = null;
+            for (String line : sorted) {
+                if (isDuplicate(previous, line)) continue;
+                writer.write(line);
+                writer.write('\n');
+                previous = line;
+            }
+        }
+        return run;
+    }
+
+    private long merge(List<Path> runs, Path output) throws IOException {
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(runs.size(), (a, b) -> comparator.compare(a.line, b.line));
+        long count = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(output, charset)) {
+            for (Path run : runs) {
+                RunCursor cursor = new RunCursor(run);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+            String previous = null;
+            while (!queue.isEmpty()) {
+                RunCursor cursor = queue.poll();
+                String line = cursor.line;
+                if (!isDuplicate(previous, line)) {
+                    writer.write(line);
+                    writer.write('\n');
+                    previous = line;
+                    count++;
+                }
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                } else {
+                    cursor.close();
+                }
+            }
+        } finally {
+            for (RunCursor cursor : queue) {
+                Streams.close(cursor);
+            }
+        }
+        return count;
+    }
+
+    private boolean isDuplicate(String previous, String line) {
+        return distinct && previous != null && comparator.compare(previous, line) == 0;
+    }
+
+    private Path createTempFile(List<Path> tempFiles) throws IOException {
+        String prefix = ExternalSorter.class.getSimpleName();
+        Path run = tempDirectory != null ? Files.createTempFile(tempDirectory, prefix, ".run") : Files.createTempFile(prefix, ".run");
+        tempFiles.add(run);
+        return run;
+    }
+
+    /**
+     * Aktuelle Zeile eines Laufs während des Merge.
+     */
+    private class RunCursor implements Closeable {
+
+        private final LineReader reader;
+        private String line;
+
+        RunCursor(Path run) throws IOException {
+            this.reader = new LineReader(Files.newByteChannel(run), charset, MERGE_BUFFER_SIZE);
+        }
+
+        boolean advance() throws IOException {
+            CharSequence next = reader.next();
+            line = next != null ? next.toString() : null;
+            return line != null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.close();
+        }
+    }
+
+}
@@ -0,0 +1,271 @@
+package de.wazilla.utils;
+
+import java.util.Arrays;
+
+/**
+ * Eine Hash-Map von <code>int</code> auf <code>int</code> ohne Boxing. Die Einträge liegen in zwei parallelen Arrays
+ * (Open Addressing mit linearem Sondieren). Weder {@link #get(int)} noch {@link #put(int, int)} eines vorhandenen
+ * Keys erzeugen Objekte; Iteration erfolgt über {@link #forEach(EntryConsumer)} ebenfalls ohne Boxing.
+ * <p>
+ * Für nicht vorhandene Keys wird der <code>noEntryValue</code> (Default 0) zurückgegeben. Die Klasse ist nicht
+ * thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class IntIntMap {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+    // der Key 0 markiert freie Plätze in der Tabelle und wird separat gespeichert
+    private static final int EMPTY = 0;
+
+    /**
+     * Empfängt die Einträge bei {@link #forEach(EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(int key, int value);
+
+    }
+
+    private final int noEntryValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int resizeAt;
+    private int assigned;
+    private boolean hasEmptyKey;
+    private int emptyKeyValue;
+
+    public IntIntMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     */
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     * @param noEntryValue Rückgabewert für nicht vorhandene Keys
+     */
+    public IntIntMap(int expectedSize, int noEntryValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize < 0!");
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public int get(int key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyValue : defaultValue;
+        int slot = PrimitiveHashing.mix(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(int key) {
+        if (key == EMPTY) return hasEmptyKey;
+        int slot = PrimitiveHashing.mix(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return den bisherigen Wert oder den <code>noEntryValue</code>
+     */
+    public int put(int key, int value) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : noEntryValue;
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return previous;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return noEntryValue;
+    }
+
+    /**
+     * Addiert <code>delta</code> auf den Wert des Keys. Ist der Key nicht vorhanden, wird <code>delta</code>
+     * (ausgehend vom <code>noEntryValue</code>) gespeichert.
+     *
+     * @return den neuen Wert
+     */
+    public int addTo(int key, int delta) {
+        if (key == EMPTY) {
+            emptyKeyValue = (hasEmptyKey ? emptyKeyValue : noEntryValue) + delta;
+            hasEmptyKey = true;
+            return emptyKeyValue;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return values[slot] += delta;
+            slot = (slot + 1) & mask;
+        }
+        int value = noEntryValue + delta;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return value;
+    }
+
+    /**
+     * @return den entfernten Wert oder den <code>noEntryValue</code>
+     */
+    public int remove(int key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) return noEntryValue;
+            hasEmptyKey = false;
+            return emptyKeyValue;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                int previous = values[slot];
+                shiftConflictingKeys(slot);
+                assigned--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return noEntryValue;
+    }
+
+    public int size() {
+        return assigned + (hasEmptyKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        assigned = 0;
+        hasEmptyKey = false;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasEmptyKey) consumer.accept(EMPTY, emptyKeyValue);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) consumer.accept(keys[slot], values[slot]);
+        }
+    }
+
+    /**
+     * @return eine Kopie aller Keys (in undefinierter Reihenfolge)
+     */
+    public int[] keys() {
+        int[] result = new int[size()];
+        int index = 0;
+        if (hasEmptyKey) result[index++] = EMPTY;
+        for (int key : keys) {
+            if (key != EMPTY) result[index++] = key;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, LOAD_FACTOR);
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(PrimitiveHashing.nextCapacity(keys.length));
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == EMPTY) continue;
+            int slot = PrimitiveHashing.mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Schließt die Lücke nach dem Entfernen, indem nachfolgende Einträge zurückgeschoben werden (keine Grabsteine).
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + ++distance) & mask;
+            int existing = keys[slot];
+            if (existing == EMPTY) break;
+            int idealSlot = PrimitiveHashing.mix(existing) & mask;
+            if (((slot - idealSlot) & mask) >= distance) {
+                keys[gapSlot] = existing;
+                values[gapSlot] = values[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = EMPTY;
+    }
+
+    /**
+     * Fluent Builder, siehe {@link Maps#intIntBuilder(int)}.
+     */
+    public static class Builder {
+
+        private final IntIntMap map;
+
+        Builder(int expectedSize) {
+            this.map = new IntIntMap(expectedSize);
+        }
+
+        public Builder put(int key, int value) {
+            this.map.put(key, value);
+            return this;
+        }
+
+        public IntIntMap build() {
+            return this.map;
+        }
+    }
+
+}
@@ -0,0 +1,172 @@
+package de.wazilla.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Liest Zeilen aus einem Byte-Strom, ohne pro Zeile einen {@link String} zu erzeugen. Die Bytes werden in einen
+ * wiederverwendeten {@link CharBuffer} dekodiert, jede Zeile wird als {@link CharSequence}-Sicht auf diesen Puffer
+ * zurückgegeben. Als Zeilenende gelten (wie bei {@link java.io.BufferedReader}) "\n", "\r" und "\r\n".
+ * <p>
+ * Die zurückgegebene {@link CharSequence} ist nur bis zum nächsten Aufruf von {@link #next()} gültig. Wer die Zeile
+ * aufbewahren möchte, muss sie mit {@link CharSequence#toString()} kopieren. Ungültige Byte-Sequenzen werden wie bei
+ * {@link java.io.InputStreamReader} ersetzt. Die Klasse ist nicht thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class LineReader implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = Integer.getInteger(LineReader.class.getName() + ".defaultBufferSize", 8192);
+
+    private final ReadableByteChannel channel;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private CharBuffer chars;
+    private CharBuffer view;
+    private int scanned;
+    private boolean skipLF;
+    private boolean endOfInput;
+    private boolean finished;
+
+    /**
+     * Erzeugt einen {@link LineReader} für den übergebenen Stream.
+     *
+     * @param in      der {@link InputStream}, aus dem gelesen werden soll
+     * @param charset das Encoding der Bytes
+     */
+    public LineReader(InputStream in, Charset charset) {
+        this(Channels.newChannel(Objects.requireNonNull(in, "in == null")), charset, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Erzeugt einen {@link LineReader} für den übergebenen Channel.
+     *
+     * @param channel    der Channel, aus dem gelesen werden soll
+     * @param charset    das Encoding der Bytes
+     * @param bufferSize die (initiale) Größe der Puffer; der Zeichenpuffer wächst bei Bedarf mit der längsten Zeile
+     */
+    public LineReader(ReadableByteChannel channel, Charset charset, int bufferSize) {
+        if (bufferSize < 2) throw new IllegalArgumentException("bufferSize < 2!");
+        this.channel = Objects.requireNonNull(channel, "channel == null");
+        this.decoder = Objects.requireNonNull(charset, "charset == null").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate(bufferSize);
+        this.chars = CharBuffer.allocate(bufferSize);
+        this.chars.flip();
+        this.view = this.chars.duplicate();
+    }
+
+    /**
+     * Gibt die nächste Zeile (ohne Zeilenende) zurück. Die Sicht ist nur bis zum nächsten Aufruf gültig.
+     *
+     * @return die nächste Zeile oder <code>null</code>, wenn das Ende des Stroms erreicht ist
+     * @throws IOException wenn nicht gelesen werden konnte
+     */
+    public CharSequence next() throws IOException {
+        while (true) {
+            if (skipLF) {
+                if (!chars.hasRemaining() && !fill()) return null;
+                if (chars.get(chars.position()) == '\n') chars.position(chars.position() + 1);
+                skipLF = false;
+            }
+            int start = chars.position();
+            int limit = chars.limit();
+            for (int index = start + scanned; index < limit; index++) {
+                char ch = chars.get(index);
+                if (ch == '\n' || ch == '\r') {
+                    skipLF = ch == '\r';
+                    scanned = 0;
+                    chars.position(index + 1);
+                    return view(start, index);
+                }
+            }
+            scanned = limit - start;
+            if (!fill()) {
+                scanned = 0;
+                if (!chars.hasRemaining()) return null;
+                chars.position(limit);
+                return view(start, limit);
+            }
+        }
+    }
+
+    /**
+     * Übergibt alle (restlichen) Zeilen nacheinander an den Consumer.
+     *
+     * @param consumer erhält jede Zeile als {@link CharSequence}-Sicht
+     * @return die Anzahl der gelesenen Zeilen
+     * @throws IOException wenn nicht gelesen werden konnte
+     */
+    public long forEach(Consumer<? super CharSequence> consumer) throws IOException {
+        Objects.requireNonNull(consumer, "consumer == null");
+        long count = 0;
+        CharSequence line;
+        while ((line = next()) != null) {
+            consumer.accept(line);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private CharSequence view(int start, int end) {
+        view.limit(end);
+        view.position(start);
+        return view;
+    }
+
+    /**
+     * Dekodiert weitere Bytes hinter die noch nicht verarbeiteten Zeichen.
+     *
+     * @return <code>false</code>, wenn keine weiteren Zeichen mehr kommen
+     */
+    private boolean fill() throws IOException {
+        if (finished) return false;
+        chars.compact();
+        int before = chars.position();
+        while (chars.position() == before && !finished) {
+            if (!chars.hasRemaining()) grow();
+            if (!endOfInput && channel.read(bytes) < 0) endOfInput = true;
+            bytes.flip();
+            CoderResult result = decoder.decode(bytes, chars, endOfInput);
+            bytes.compact();
+            if (result.isError()) result.throwException();
+            if (endOfInput && result.isUnderflow()) {
+                while (decoder.flush(chars).isOverflow()) {
+                    grow();
+                }
+                finished = true;
+            } else if (result.isOverflow() && chars.position() == before) {
+                grow();
+            }
+        }
+        chars.flip();
+        return chars.hasRemaining() || !finished;
+    }
+
+    private void grow() {
+        CharBuffer grown = CharBuffer.allocate(chars.capacity() * 2);
+        chars.flip();
+        grown.put(chars);
+        chars = grown;
+        view = chars.duplicate();
+    }
+
+}
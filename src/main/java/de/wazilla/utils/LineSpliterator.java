@@ -0,0 +1,178 @@
+package de.wazilla.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Ein {@link Spliterator} über die Zeilen eines Bereichs einer Datei. Beim Aufteilen wird der Bereich in der Mitte
+ * geteilt und die Grenze bis hinter das nächste "\n" verschoben, so dass jede Zeile vollständig in genau einem Teil
+ * liegt. Dadurch skalieren <code>parallel()</code>-Streams über mehrere Kerne.
+ * <p>
+ * Aufgeteilt wird nur bei Encodings, in denen das Byte 0x0A ausschließlich als Zeilenumbruch vorkommt (z.B. UTF-8,
+ * US-ASCII, ISO-8859-1). Bei allen anderen Encodings (z.B. UTF-16) wird die Datei sequentiell gelesen.
+ * Der {@link FileChannel} wird von allen Teilen gemeinsam (über positionsbezogenes Lesen) verwendet und muss vom
+ * Aufrufer geschlossen werden.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class LineSpliterator implements Spliterator<String> {
+
+    private static final int DEFAULT_BUFFER_SIZE = Integer.getInteger(LineSpliterator.class.getName() + ".defaultBufferSize", 8192);
+    private static final long MIN_SPLIT_SIZE = Long.getLong(LineSpliterator.class.getName() + ".minSplitSize", 64L * 1024);
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final boolean splittable;
+    private long start;
+    private final long end;
+    private LineReader reader;
+
+    /**
+     * Erzeugt einen {@link Spliterator} über alle Zeilen der Datei.
+     *
+     * @param channel der {@link FileChannel} der Datei
+     * @param charset das Encoding der Datei
+     * @throws IOException wenn die Größe der Datei nicht ermittelt werden konnte
+     */
+    public LineSpliterator(FileChannel channel, Charset charset) throws IOException {
+        this(channel, charset, 0, channel.size());
+    }
+
+    /**
+     * Erzeugt einen {@link Spliterator} über die Zeilen im Bereich [start, end) der Datei. Der Bereich muss an einer
+     * Zeilengrenze beginnen.
+     *
+     * @param channel der {@link FileChannel} der Datei
+     * @param charset das Encoding der Datei
+     * @param start   Position des ersten Bytes
+     * @param end     Position hinter dem letzten Byte
+     */
+    public LineSpliterator(FileChannel channel, Charset charset, long start, long end) {
+        this.channel = Objects.requireNonNull(channel, "channel == null");
+        this.charset = Objects.requireNonNull(charset, "charset == null");
+        if (start < 0 || start > end) throw new IllegalArgumentException("start=" + start + ", end=" + end);
+        this.splittable = isSplittable(charset);
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        try {
+            CharSequence line = reader().next();
+            if (line == null) return false;
+            action.accept(line.toString());
+            return true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        try {
+            LineReader lineReader = reader();
+            CharSequence line;
+            while ((line = lineReader.next()) != null) {
+                action.accept(line.toString());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (!splittable || reader != null || end - start < MIN_SPLIT_SIZE) return null;
+        try {
+            long split = nextLineStart(start + (end - start) / 2);
+            if (split <= start || split >= end) return null;
+            LineSpliterator prefix = new LineSpliterator(channel, charset, start, split);
+            this.start = split;
+            return prefix;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public long estimateSize() {
+        // Die Anzahl der Zeilen ist unbekannt, die Anzahl der Bytes ist eine obere Schranke.
+        return end - start;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private LineReader reader() {
+        if (reader == null) reader = new LineReader(new RangeChannel(), charset, DEFAULT_BUFFER_SIZE);
+        return reader;
+    }
+
+    private long nextLineStart(long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        long current = position;
+        while (current < end) {
+            buffer.clear();
+            int len = channel.read(buffer, current);
+            if (len < 0) return end;
+            for (int i = 0; i < len; i++) {
+                if (buffer.get(i) == '\n') return current + i + 1;
+            }
+            current += len;
+        }
+        return end;
+    }
+
+    private static boolean isSplittable(Charset charset) {
+        if (StandardCharsets.UTF_8.equals(charset)) return true;
+        return charset.newEncoder().maxBytesPerChar() == 1F
+                && Arrays.equals(new byte[]{'\n'}, "\n".getBytes(charset));
+    }
+
+    /**
+     * Liest positionsbezogen aus dem gemeinsamen {@link FileChannel}, ohne dessen Position zu verändern.
+     */
+    private class RangeChannel implements ReadableByteChannel {
+
+        private long position = start;
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            long remaining = end - position;
+            if (remaining <= 0) return -1;
+            int limit = dst.limit();
+            if (dst.remaining() > remaining) dst.limit(dst.position() + (int) remaining);
+            try {
+                int len = channel.read(dst, position);
+                if (len > 0) position += len;
+                return len;
+            } finally {
+                dst.limit(limit);
+            }
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // Der gemeinsame Channel wird vom Ersteller geschlossen
+        }
+    }
+
+}
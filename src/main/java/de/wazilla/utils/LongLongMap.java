@@ -0,0 +1,271 @@
+package de.wazilla.utils;
+
+import java.util.Arrays;
+
+/**
+ * Eine Hash-Map von <code>long</code> auf <code>long</code> ohne Boxing. Die Einträge liegen in zwei parallelen Arrays
+ * (Open Addressing mit linearem Sondieren). Weder {@link #get(long)} noch {@link #put(long, long)} eines vorhandenen
+ * Keys erzeugen Objekte; Iteration erfolgt über {@link #forEach(EntryConsumer)} ebenfalls ohne Boxing.
+ * <p>
+ * Für nicht vorhandene Keys wird der <code>noEntryValue</code> (Default 0) zurückgegeben. Die Klasse ist nicht
+ * thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class LongLongMap {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+    // der Key 0 markiert freie Plätze in der Tabelle und wird separat gespeichert
+    private static final long EMPTY = 0L;
+
+    /**
+     * Empfängt die Einträge bei {@link #forEach(EntryConsumer)}.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(long key, long value);
+
+    }
+
+    private final long noEntryValue;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int resizeAt;
+    private int assigned;
+    private boolean hasEmptyKey;
+    private long emptyKeyValue;
+
+    public LongLongMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     */
+    public LongLongMap(int expectedSize) {
+        this(expectedSize, 0L);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     * @param noEntryValue Rückgabewert für nicht vorhandene Keys
+     */
+    public LongLongMap(int expectedSize, long noEntryValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize < 0!");
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public long get(long key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyValue : defaultValue;
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) return hasEmptyKey;
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return den bisherigen Wert oder den <code>noEntryValue</code>
+     */
+    public long put(long key, long value) {
+        if (key == EMPTY) {
+            long previous = hasEmptyKey ? emptyKeyValue : noEntryValue;
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return previous;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                long previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return noEntryValue;
+    }
+
+    /**
+     * Addiert <code>delta</code> auf den Wert des Keys. Ist der Key nicht vorhanden, wird <code>delta</code>
+     * (ausgehend vom <code>noEntryValue</code>) gespeichert.
+     *
+     * @return den neuen Wert
+     */
+    public long addTo(long key, long delta) {
+        if (key == EMPTY) {
+            emptyKeyValue = (hasEmptyKey ? emptyKeyValue : noEntryValue) + delta;
+            hasEmptyKey = true;
+            return emptyKeyValue;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return values[slot] += delta;
+            slot = (slot + 1) & mask;
+        }
+        long value = noEntryValue + delta;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return value;
+    }
+
+    /**
+     * @return den entfernten Wert oder den <code>noEntryValue</code>
+     */
+    public long remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) return noEntryValue;
+            hasEmptyKey = false;
+            return emptyKeyValue;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                long previous = values[slot];
+                shiftConflictingKeys(slot);
+                assigned--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return noEntryValue;
+    }
+
+    public int size() {
+        return assigned + (hasEmptyKey ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        assigned = 0;
+        hasEmptyKey = false;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        if (hasEmptyKey) consumer.accept(EMPTY, emptyKeyValue);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) consumer.accept(keys[slot], values[slot]);
+        }
+    }
+
+    /**
+     * @return eine Kopie aller Keys (in undefinierter Reihenfolge)
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int index = 0;
+        if (hasEmptyKey) result[index++] = EMPTY;
+        for (long key : keys) {
+            if (key != EMPTY) result[index++] = key;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(PrimitiveHashing.nextCapacity(keys.length));
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) continue;
+            int slot = PrimitiveHashing.mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Schließt die Lücke nach dem Entfernen, indem nachfolgende Einträge zurückgeschoben werden (keine Grabsteine).
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + ++distance) & mask;
+            long existing = keys[slot];
+            if (existing == EMPTY) break;
+            int idealSlot = PrimitiveHashing.mix(existing) & mask;
+            if (((slot - idealSlot) & mask) >= distance) {
+                keys[gapSlot] = existing;
+                values[gapSlot] = values[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = EMPTY;
+    }
+
+    /**
+     * Fluent Builder, siehe {@link Maps#longLongBuilder(int)}.
+     */
+    public static class Builder {
+
+        private final LongLongMap map;
+
+        Builder(int expectedSize) {
+            this.map = new LongLongMap(expectedSize);
+        }
+
+        public Builder put(long key, long value) {
+            this.map.put(key, value);
+            return this;
+        }
+
+        public LongLongMap build() {
+            return this.map;
+        }
+    }
+
+}
@@ -0,0 +1,254 @@
+package de.wazilla.utils;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Eine Hash-Map von <code>long</code> auf Objekte ohne Boxing der Keys. Die Einträge liegen in zwei parallelen Arrays
+ * (Open Addressing mit linearem Sondieren). Weder {@link #get(long)} noch {@link #put(long, Object)} eines
+ * vorhandenen Keys erzeugen Objekte; Iteration erfolgt über {@link #forEach(EntryConsumer)} ebenfalls ohne Boxing.
+ * <p>
+ * <code>null</code> ist als Wert nicht erlaubt, {@link #get(long)} liefert <code>null</code> für nicht vorhandene
+ * Keys. Die Klasse ist nicht thread-safe.
+ * </p>
+ *
+ * @param <V> Typ der Werte
+ * @author Ralf Lang
+ */
+public class LongObjectMap<V> {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+    // der Key 0 markiert freie Plätze in der Tabelle und wird separat gespeichert
+    private static final long EMPTY = 0L;
+
+    /**
+     * Empfängt die Einträge bei {@link #forEach(EntryConsumer)}.
+     *
+     * @param <V> Typ der Werte
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+
+        void accept(long key, V value);
+
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int resizeAt;
+    private int assigned;
+    private V emptyKeyValue;
+
+    public LongObjectMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     */
+    public LongObjectMap(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize < 0!");
+        allocate(PrimitiveHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public V get(long key) {
+        return getOrDefault(key, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        if (key == EMPTY) return emptyKeyValue != null ? emptyKeyValue : defaultValue;
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) return (V) values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * @return den bisherigen Wert oder <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) throw new NullPointerException("value == null");
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            emptyKeyValue = value;
+            return previous;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return null;
+    }
+
+    /**
+     * Gibt den Wert zum Key zurück. Ist keiner vorhanden, wird er mit der übergebenen Funktion erzeugt und gespeichert.
+     *
+     * @return den vorhandenen oder neu erzeugten Wert
+     */
+    public V computeIfAbsent(long key, LongFunction<? extends V> mappingFunction) {
+        V value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return den entfernten Wert oder <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+            emptyKeyValue = null;
+            return previous;
+        }
+        int slot = PrimitiveHashing.mix(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != EMPTY) {
+            if (existing == key) {
+                V previous = (V) values[slot];
+                shiftConflictingKeys(slot);
+                assigned--;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return assigned + (emptyKeyValue != null ? 1 : 0);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        assigned = 0;
+        emptyKeyValue = null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> consumer) {
+        if (emptyKeyValue != null) consumer.accept(EMPTY, emptyKeyValue);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY) consumer.accept(keys[slot], (V) values[slot]);
+        }
+    }
+
+    /**
+     * @return eine Kopie aller Keys (in undefinierter Reihenfolge)
+     */
+    public long[] keys() {
+        long[] result = new long[size()];
+        int index = 0;
+        if (emptyKeyValue != null) result[index++] = EMPTY;
+        for (long key : keys) {
+            if (key != EMPTY) result[index++] = key;
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, LOAD_FACTOR);
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(PrimitiveHashing.nextCapacity(keys.length));
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == EMPTY) continue;
+            int slot = PrimitiveHashing.mix(key) & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Schließt die Lücke nach dem Entfernen, indem nachfolgende Einträge zurückgeschoben werden (keine Grabsteine).
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + ++distance) & mask;
+            long existing = keys[slot];
+            if (existing == EMPTY) break;
+            int idealSlot = PrimitiveHashing.mix(existing) & mask;
+            if (((slot - idealSlot) & mask) >= distance) {
+                keys[gapSlot] = existing;
+                values[gapSlot] = values[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = EMPTY;
+        values[gapSlot] = null;
+    }
+
+    /**
+     * Fluent Builder, siehe {@link Maps#longObjectBuilder(int)}.
+     *
+     * @param <V> Typ der Werte
+     */
+    public static class Builder<V> {
+
+        private final LongObjectMap<V> map;
+
+        Builder(int expectedSize) {
+            this.map = new LongObjectMap<>(expectedSize);
+        }
+
+        public Builder<V> put(long key, V value) {
+            this.map.put(key, value);
+            return this;
+        }
+
+        public LongObjectMap<V> build() {
+            return this.map;
+        }
+    }
+
+}
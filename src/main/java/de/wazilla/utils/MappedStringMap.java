@@ -0,0 +1,374 @@
+package de.wazilla.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+
+/**
+ * Eine unveränderliche String-Map außerhalb des Heaps, z.B. für Code-Tabellen mit zig Millionen Einträgen, die als
+ * {@link de.wazilla.utils.text.Lookup} (<code>map::get</code>) für den
+ * {@link de.wazilla.utils.text.StandardVariableResolver} dienen. Die Daten liegen in einer Datei, die per
+ * {@link FileChannel#map(FileChannel.MapMode, long, long)} read-only eingeblendet wird. Dadurch belasten sie weder
+ * Heap noch Garbage Collector, sind nach einem Neustart sofort verfügbar und werden vom Betriebssystem zwischen
+ * mehreren JVMs geteilt.
+ * <p>
+ * Die Datei wird einmalig mit {@link #writer(Path)} erzeugt. Aufbau (Big Endian):
+ * </p>
+ * <pre>
+ * Header (64 Bytes): Magic, Version, Anzahl Einträge, Anzahl Slots, Positionen der Bereiche, Dateigröße
+ * Daten:  pro Eintrag int keyLength, int valueLength, Key (UTF-8), Value (UTF-8)
+ * Index:  int[slots] Hashes, long[slots] Positionen der Einträge (0 = frei), Open Addressing mit linearem Sondieren
+ * </pre>
+ * <p>
+ * Bei doppelten Keys liefert {@link #get(String)} den zuerst geschriebenen Wert. Die Instanz ist thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public final class MappedStringMap implements Closeable {
+
+    private static final int MAGIC = 0x575A534D; // "WZSM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final float LOAD_FACTOR = 0.7F;
+    private static final int MAX_SLOTS = 1 << 27;
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final long size;
+    private final int slots;
+    private final long dataEnd;
+    private final MappedByteBuffer hashes;
+    private final MappedByteBuffer offsets;
+    private final MappedByteBuffer[] segments;
+
+    private MappedStringMap(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) throw new IOException("Not a " + MappedStringMap.class.getSimpleName() + " file");
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a " + MappedStringMap.class.getSimpleName() + " file");
+        if (header.getInt(4) != VERSION) throw new IOException("Unsupported version " + header.getInt(4));
+        if (header.getLong(56) != fileSize) throw new IOException("Incomplete file, expected " + header.getLong(56) + " bytes");
+        this.size = header.getLong(8);
+        this.slots = header.getInt(16);
+        this.dataEnd = header.getLong(32);
+        this.hashes = channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(40), 4L * slots);
+        this.offsets = channel.map(FileChannel.MapMode.READ_ONLY, header.getLong(48), 8L * slots);
+        int segmentCount = (int) ((dataEnd + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, dataEnd - start));
+        }
+    }
+
+    /**
+     * Blendet eine mit {@link #writer(Path)} erzeugte Datei ein.
+     *
+     * @param file die Datei
+     * @return die Map
+     * @throws IOException wenn die Datei nicht gelesen werden konnte oder kein gültiges Format hat
+     */
+    public static MappedStringMap open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedStringMap(channel);
+        } catch (IOException | RuntimeException ex) {
+            Streams.close(channel);
+            throw ex;
+        }
+    }
+
+    /**
+     * @param file die zu erzeugende Datei (eine vorhandene Datei wird erst beim erfolgreichen Schließen ersetzt)
+     * @return einen {@link Writer}, der nach dem Schreiben aller Einträge geschlossen werden muss
+     * @throws IOException wenn die temporäre Datei nicht angelegt werden konnte
+     */
+    public static Writer writer(Path file) throws IOException {
+        return new Writer(file);
+    }
+
+    /**
+     * Schreibt alle Einträge der Map in eine neue Datei.
+     *
+     * @param file die zu erzeugende Datei (eine vorhandene Datei bleibt bei einem Fehler unverändert)
+     * @param map  die Einträge
+     * @throws IOException wenn die Datei nicht geschrieben werden konnte
+     */
+    public static void write(Path file, Map<String, String> map) throws IOException {
+        Writer writer = writer(file);
+        try {
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                writer.put(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException | RuntimeException ex) {
+            writer.abort();
+            throw ex;
+        }
+        writer.close();
+    }
+
+    /**
+     * @return den Wert oder <code>null</code>, wenn der Key nicht vorhanden ist
+     */
+    public String get(String key) {
+        if (key == null) return null;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(keyBytes, keyBytes.length);
+        int mask = slots - 1;
+        int slot = spread(hash) & mask;
+        long position;
+        while ((position = offsets.getLong(slot << 3)) != 0) {
+            if (hashes.getInt(slot << 2) == hash && keyEquals(position, keyBytes)) {
+                int valueLength = getInt(position + 4);
+                return readString(position + 8 + keyBytes.length, valueLength);
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(String key) {
+        return get(key) != null;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Übergibt alle Einträge in der Reihenfolge, in der sie geschrieben wurden.
+     */
+    public void forEach(BiConsumer<String, String> consumer) {
+        long position = HEADER_SIZE;
+        while (position < dataEnd) {
+            int keyLength = getInt(position);
+            int valueLength = getInt(position + 4);
+            String key = readString(position + 8, keyLength);
+            String value = readString(position + 8 + keyLength, valueLength);
+            consumer.accept(key, value);
+            position += 8L + keyLength + valueLength;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Die Mappings selbst gibt erst der Garbage Collector frei
+        channel.close();
+    }
+
+    private boolean keyEquals(long position, byte[] keyBytes) {
+        if (getInt(position) != keyBytes.length) return false;
+        long start = position + 8;
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (getByte(start + i) != keyBytes[i]) return false;
+        }
+        return true;
+    }
+
+    private String readString(long position, int length) {
+        byte[] bytes = new byte[length];
+        int segment = (int) (position >>> SEGMENT_SHIFT);
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+        if (offset + (long) length <= segments[segment].limit()) {
+            MappedByteBuffer buffer = segments[segment];
+            for (int i = 0; i < length; i++) {
+                bytes[i] = buffer.get(offset + i);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                bytes[i] = getByte(position + i);
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte getByte(long position) {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & (SEGMENT_SIZE - 1)));
+    }
+
+    private int getInt(long position) {
+        int offset = (int) (position & (SEGMENT_SIZE - 1));
+        MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        if (offset + 4 <= segment.limit()) return segment.getInt(offset);
+        // über eine Segmentgrenze hinweg
+        return (getByte(position) & 0xFF) << 24 | (getByte(position + 1) & 0xFF) << 16
+                | (getByte(position + 2) & 0xFF) << 8 | (getByte(position + 3) & 0xFF);
+    }
+
+    /**
+     * FNV-1a über die UTF-8-Bytes, damit der Hash unabhängig von {@link String#hashCode()} in der Datei stabil ist.
+     */
+    private static int hash(byte[] bytes, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash ^= bytes[i] & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    private static int spread(int hash) {
+        return PrimitiveHashing.mix(hash);
+    }
+
+    /**
+     * Schreibt die Einträge sequentiell in eine temporäre Datei im Zielverzeichnis und baut beim Schließen den Index
+     * auf. Der Index wird direkt in der (eingeblendeten) Datei aufgebaut, so dass auch beim Schreiben kein Heap
+     * proportional zur Anzahl der Einträge benötigt wird. Erst danach ersetzt die fertige Datei das Ziel atomar; Leser,
+     * die die alte Datei eingeblendet haben, sehen weiter deren Inhalt. Ist ein {@link #put(String, String)}
+     * fehlgeschlagen oder wurde {@link #abort()} aufgerufen, wird die temporäre Datei beim Schließen verworfen.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path file;
+        private final Path tempFile;
+        private final DataOutputStream out;
+        private long position = HEADER_SIZE;
+        private long count;
+        private boolean failed;
+        private boolean closed;
+
+        private Writer(Path file) throws IOException {
+            this.file = Objects.requireNonNull(file, "file == null");
+            Path dir = file.toAbsolutePath().getParent();
+            this.tempFile = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+            try {
+                OutputStream fileOut = Files.newOutputStream(tempFile);
+                this.out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+                this.out.write(new byte[HEADER_SIZE]);
+            } catch (IOException | RuntimeException ex) {
+                Files.deleteIfExists(tempFile);
+                throw ex;
+            }
+        }
+
+        public Writer put(String key, String value) throws IOException {
+            if (closed) throw new IllegalStateException("Writer is closed");
+            try {
+                Objects.requireNonNull(key, "key == null");
+                Objects.requireNonNull(value, "value == null");
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                byte[] valueBytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(keyBytes.length);
+                out.writeInt(valueBytes.length);
+                out.write(keyBytes);
+                out.write(valueBytes);
+                position += 8L + keyBytes.length + valueBytes.length;
+                count++;
+                return this;
+            } catch (IOException | RuntimeException ex) {
+                failed = true;
+                throw ex;
+            }
+        }
+
+        /**
+         * Verwirft die bisher geschriebenen Einträge, das Ziel bleibt unverändert.
+         */
+        public void abort() throws IOException {
+            failed = true;
+            close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                out.close();
+                if (!failed) {
+                    writeIndex();
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+
+        private void writeIndex() throws IOException {
+            long dataEnd = position;
+            int slots = PrimitiveHashing.tableSize((int) Math.min(count, Integer.MAX_VALUE), LOAD_FACTOR);
+            if (count > MAX_SLOTS * (double) LOAD_FACTOR || slots > MAX_SLOTS) throw new IOException("Too many entries: " + count);
+            long hashesStart = dataEnd;
+            long offsetsStart = hashesStart + 4L * slots;
+            long fileSize = offsetsStart + 8L * slots;
+            try (RandomAccessFile raf = new RandomAccessFile(tempFile.toFile(), "rw"); FileChannel channel = raf.getChannel()) {
+                raf.setLength(fileSize);
+                MappedByteBuffer hashes = channel.map(FileChannel.MapMode.READ_WRITE, hashesStart, 4L * slots);
+                MappedByteBuffer offsets = channel.map(FileChannel.MapMode.READ_WRITE, offsetsStart, 8L * slots);
+                buildIndex(dataEnd, slots, hashes, offsets);
+                hashes.force();
+                offsets.force();
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+                header.putInt(0, MAGIC);
+                header.putInt(4, VERSION);
+                header.putLong(8, count);
+                header.putInt(16, slots);
+                header.putLong(24, HEADER_SIZE);
+                header.putLong(32, dataEnd);
+                header.putLong(40, hashesStart);
+                header.putLong(48, offsetsStart);
+                header.putLong(56, fileSize);
+                header.force();
+            }
+        }
+
+        private void buildIndex(long dataEnd, int slots, MappedByteBuffer hashes, MappedByteBuffer offsets) throws IOException {
+            int mask = slots - 1;
+            try (InputStream fileIn = Files.newInputStream(tempFile);
+                 DataInputStream in = new DataInputStream(new BufferedInputStream(fileIn, 64 * 1024))) {
+                skipFully(in, HEADER_SIZE);
+                long recordStart = HEADER_SIZE;
+                byte[] keyBytes = new byte[256];
+                while (recordStart < dataEnd) {
+                    int keyLength = in.readInt();
+                    int valueLength = in.readInt();
+                    if (keyBytes.length < keyLength) keyBytes = new byte[Math.max(keyLength, keyBytes.length * 2)];
+                    in.readFully(keyBytes, 0, keyLength);
+                    skipFully(in, valueLength);
+                    int hash = hash(keyBytes, keyLength);
+                    int slot = spread(hash) & mask;
+                    while (offsets.getLong(slot << 3) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes.putInt(slot << 2, hash);
+                    offsets.putLong(slot << 3, recordStart);
+                    recordStart += 8L + keyLength + valueLength;
+                }
+            }
+        }
+
+        private static void skipFully(InputStream in, long count) throws IOException {
+            long remaining = count;
+            while (remaining > 0) {
+                long skipped = in.skip(remaining);
+                if (skipped <= 0) {
+                    if (in.read() < 0) throw new EOFException();
+                    skipped = 1;
+                }
+                remaining -= skipped;
+            }
+        }
+    }
+
+}
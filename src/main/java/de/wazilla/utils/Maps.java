@@ -1,14 +1,29 @@
 package de.wazilla.utils;
 
+import java.lang.reflect.Constructor;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public final class Maps {
 
     @SuppressWarnings("rawtypes")
     private static final Class<? extends Map> DEFAULT_MAP_IMPLEMENTATION_CLASS = LinkedHashMap.class;
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger(Maps.class.getName() + ".parallelThreshold", 1 << 16);
+    private static final ClassValue<MapFactory> MAP_FACTORIES = new ClassValue<MapFactory>() {
+        @Override
+        protected MapFactory computeValue(Class<?> type) {
+            return new MapFactory(type);
+        }
+    };
 
     private Maps() {
         // Utility class
@@ -16,7 +31,24 @@ public final class Maps {
 
     @SuppressWarnings("rawtypes")
     public static <K, V> MapBuilder<K, V> builder(Class<? extends Map> mapImplementationClass) {
-        Map<K, V> map = createMap(mapImplementationClass);
+        Map<K, V> map = createMap(mapImplementationClass, -1);
+        return new MapBuilder<>(map);
+    }
+
+    /**
+     * Erzeugt einen {@link MapBuilder}, dessen Map (sofern die Implementierung einen Kapazitäts-Konstruktor hat) für
+     * die angegebene Anzahl an Einträgen vorab dimensioniert ist.
+     *
+     * @param mapImplementationClass die Map-Implementierung
+     * @param expectedSize           die erwartete Anzahl an Einträgen
+     * @param <K>                    Typ der Keys
+     * @param <V>                    Typ der Werte
+     * @return einen neuen {@link MapBuilder}
+     */
+    @SuppressWarnings("rawtypes")
+    public static <K, V> MapBuilder<K, V> builder(Class<? extends Map> mapImplementationClass, int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize < 0!");
+        Map<K, V> map = createMap(mapImplementationClass, expectedSize);
         return new MapBuilder<>(map);
     }
 
@@ -29,25 +61,268 @@ public final class Maps {
         return createMap(keys, values, DEFAULT_MAP_IMPLEMENTATION_CLASS);
     }
 
+    /**
+     * Erzeugt eine Map aus den übergebenen Keys und Werten. Ab einer gewissen Größe (System-Property
+     * <code>de.wazilla.utils.Maps.parallelThreshold</code>, Default 65536) wird die Map parallel aufgebaut, siehe
+     * {@link #createMapParallel(Object[], Object[], Class)}.
+     *
+     * @param keys                   die Keys
+     * @param values                 die Werte, passend zu den Keys
+     * @param mapImplementationClass die Map-Implementierung
+     * @param <K>                    Typ der Keys
+     * @param <V>                    Typ der Werte
+     * @return die erzeugte Map
+     */
     @SuppressWarnings("rawtypes")
     public static <K, V> Map<K, V> createMap(K[] keys, V[] values, Class<? extends Map> mapImplementationClass) {
         Objects.requireNonNull(keys, "keys == null");
         Objects.requireNonNull(values, "values == null");
         if (keys.length != values.length) throw new IllegalArgumentException("keys.length != values.length");
-        Map<K, V> map = createMap(mapImplementationClass);
+        if (keys.length >= PARALLEL_THRESHOLD) return createMapParallel(keys, values, mapImplementationClass);
+        Map<K, V> map = createMap(mapImplementationClass, keys.length);
         for(int i = 0; i < keys.length; i++) {
             map.put(keys[i], values[i]);
         }
         return map;
     }
 
-    @SuppressWarnings({"rawtypes", "unchecked"})
-    private static <K, V> Map<K, V> createMap(Class<? extends Map> mapImplementationClass) {
-        try {
-            return mapImplementationClass.getConstructor().newInstance();
-        } catch (ReflectiveOperationException ex) {
-            throw new IllegalStateException("Error creating " + mapImplementationClass, ex);
+    /**
+     * Erzeugt eine Map aus den übergebenen Keys und Werten, indem Teilbereiche der Arrays parallel (im
+     * {@link java.util.concurrent.ForkJoinPool#commonPool()}) in eigene Maps übertragen und diese anschließend in
+     * Reihenfolge zusammengeführt werden. Das Ergebnis entspricht dem sequentiellen Aufbau: bei doppelten Keys gewinnt
+     * der letzte Wert, eine {@link LinkedHashMap} behält die Reihenfolge der Arrays.
+     *
+     * @param keys                   die Keys
+     * @param values                 die Werte, passend zu den Keys
+     * @param mapImplementationClass die Map-Implementierung
+     * @param <K>                    Typ der Keys
+     * @param <V>                    Typ der Werte
+     * @return die erzeugte Map
+     */
+    @SuppressWarnings("rawtypes")
+    public static <K, V> Map<K, V> createMapParallel(K[] keys, V[] values, Class<? extends Map> mapImplementationClass) {
+        Objects.requireNonNull(keys, "keys == null");
+        Objects.requireNonNull(values, "values == null");
+        if (keys.length != values.length) throw new IllegalArgumentException("keys.length != values.length");
+        MapFactory factory = MAP_FACTORIES.get(mapImplementationClass);
+        int chunkSize = Math.max(1, keys.length / Runtime.getRuntime().availableProcessors());
+        return IntStream.range(0, keys.length).parallel().collect(
+                () -> factory.<K, V>create(chunkSize),
+                (map, i) -> map.put(keys[i], values[i]),
+                Map::putAll);
+    }
+
+    /**
+     * Erzeugt eine unveränderliche Kopie der Map mit deutlich geringerem Speicherbedarf als {@link HashMap} bzw.
+     * {@link LinkedHashMap}. Die Iterationsreihenfolge der Quell-Map bleibt erhalten.
+     *
+     * @param map die zu kopierende Map
+     * @param <K> Typ der Keys
+     * @param <V> Typ der Werte
+     * @return eine unveränderliche Map
+     */
+    public static <K, V> Map<K, V> immutableCopyOf(Map<? extends K, ? extends V> map) {
+        Objects.requireNonNull(map, "map == null");
+        if (map.isEmpty()) return Collections.emptyMap();
+        return new CompactImmutableMap<>(map);
+    }
+
+    /**
+     * Vergleicht zwei Maps und meldet die Unterschiede an den Listener, siehe
+     * {@link #diff(Map, Map, DiffListener, ForkJoinPool)}. Verwendet wird der
+     * {@link ForkJoinPool#commonPool()}.
+     */
+    public static <K, V> void diff(Map<K, V> left, Map<K, V> right, DiffListener<? super K, ? super V> listener) {
+        diff(left, right, listener, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Vergleicht zwei Maps (z.B. zwei Stände von {@link Props#toMap(java.util.Properties)}) und meldet die
+     * Unterschiede an den Listener, ohne eine neue Map aufzubauen. Ab einer gewissen Größe (siehe {@link #createMap(Object[], Object[], Class)}) werden
+     * die Keys beider Maps über ihre {@link java.util.Spliterator}s aufgeteilt und im übergebenen Pool parallel
+     * verglichen; der Listener muss dann thread-safe sein und wird in keiner bestimmten Reihenfolge aufgerufen.
+     * Während des Vergleichs dürfen die Maps nicht verändert werden.
+     *
+     * @param left     der alte Stand
+     * @param right    der neue Stand
+     * @param listener erhält hinzugekommene, entfernte und geänderte Einträge
+     * @param pool     der Pool für den parallelen Vergleich
+     */
+    public static <K, V> void diff(Map<K, V> left, Map<K, V> right, DiffListener<? super K, ? super V> listener, ForkJoinPool pool) {
+        Objects.requireNonNull(left, "left == null");
+        Objects.requireNonNull(right, "right == null");
+        Objects.requireNonNull(listener, "listener == null");
+        Objects.requireNonNull(pool, "pool == null");
+        forEachEntry(left, pool, (key, value) -> {
+            if (!right.containsKey(key)) {
+                listener.removed(key, value);
+            } else {
+                V rightValue = right.get(key);
+                if (!Objects.equals(value, rightValue)) listener.changed(key, value, rightValue);
+            }
+        });
+        forEachEntry(right, pool, (key, value) -> {
+            if (!left.containsKey(key)) listener.added(key, value);
+        });
+    }
+
+    /**
+     * Führt zwei Maps zusammen und übergibt jeden Eintrag der Vereinigung an den Consumer, ohne eine neue Map
+     * aufzubauen. Bei Keys, die in beiden Maps mit unterschiedlichen Werten vorkommen, entscheidet der
+     * <code>resolver</code> (z.B. <code>(l, r) -&gt; r</code>: der neue Stand gewinnt). Parallelität und Anforderungen
+     * an den Consumer wie bei {@link #diff(Map, Map, DiffListener, ForkJoinPool)}.
+     *
+     * @param left     der alte Stand
+     * @param right    der neue Stand
+     * @param resolver löst Konflikte auf
+     * @param consumer erhält die zusammengeführten Einträge
+     */
+    public static <K, V> void merge(Map<K, V> left, Map<K, V> right, BinaryOperator<V> resolver, BiConsumer<? super K, ? super V> consumer) {
+        merge(left, right, resolver, consumer, ForkJoinPool.commonPool());
+    }
+
+    public static <K, V> void merge(Map<K, V> left, Map<K, V> right, BinaryOperator<V> resolver, BiConsumer<? super K, ? super V> consumer, ForkJoinPool pool) {
+        Objects.requireNonNull(left, "left == null");
+        Objects.requireNonNull(right, "right == null");
+        Objects.requireNonNull(resolver, "resolver == null");
+        Objects.requireNonNull(consumer, "consumer == null");
+        Objects.requireNonNull(pool, "pool == null");
+        forEachEntry(left, pool, (key, value) -> {
+            if (!right.containsKey(key)) {
+                consumer.accept(key, value);
+            } else {
+                V rightValue = right.get(key);
+                consumer.accept(key, Objects.equals(value, rightValue) ? value : resolver.apply(value, rightValue));
+            }
+        });
+        forEachEntry(right, pool, (key, value) -> {
+            if (!left.containsKey(key)) consumer.accept(key, value);
+        });
+    }
+
+    private static <K, V> void forEachEntry(Map<K, V> map, ForkJoinPool pool, BiConsumer<K, V> action) {
+        if (map.size() < PARALLEL_THRESHOLD) {
+            map.forEach(action);
+            return;
         }
+        Stream<Map.Entry<K, V>> entries = map.entrySet().parallelStream();
+        // Ein paralleler Stream, der innerhalb eines ForkJoinPool-Tasks ausgeführt wird, verwendet diesen Pool
+        pool.submit(() -> entries.forEach(entry -> action.accept(entry.getKey(), entry.getValue()))).join();
+    }
+
+    public static IntIntMap newIntIntMap(int expectedSize) {
+        return new IntIntMap(expectedSize);
+    }
+
+    public static LongLongMap newLongLongMap(int expectedSize) {
+        return new LongLongMap(expectedSize);
+    }
+
+    public static <V> LongObjectMap<V> newLongObjectMap(int expectedSize) {
+        return new LongObjectMap<>(expectedSize);
+    }
+
+    public static <K> ObjectIntMap<K> newObjectIntMap(int expectedSize) {
+        return new ObjectIntMap<>(expectedSize);
+    }
+
+    /**
+     * @return eine {@link ConcurrentCounterMap} ohne Top-K-Ermittlung
+     */
+    public static <K> ConcurrentCounterMap<K> newCounterMap() {
+        return new ConcurrentCounterMap<>(0);
+    }
+
+    /**
+     * @param topK Anzahl der häufigsten Keys, die per Space-Saving-Sketch ermittelt werden (0 = keine)
+     * @return eine {@link ConcurrentCounterMap}
+     */
+    public static <K> ConcurrentCounterMap<K> newCounterMap(int topK) {
+        return new ConcurrentCounterMap<>(topK);
+    }
+
+    public static IntIntMap.Builder intIntBuilder(int expectedSize) {
+        return new IntIntMap.Builder(expectedSize);
+    }
+
+    public static LongLongMap.Builder longLongBuilder(int expectedSize) {
+        return new LongLongMap.Builder(expectedSize);
+    }
+
+    public static <V> LongObjectMap.Builder<V> longObjectBuilder(int expectedSize) {
+        return new LongObjectMap.Builder<>(expectedSize);
+    }
+
+    public static <K> ObjectIntMap.Builder<K> objectIntBuilder(int expectedSize) {
+        return new ObjectIntMap.Builder<>(expectedSize);
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static <K, V> Map<K, V> createMap(Class<? extends Map> mapImplementationClass, int expectedSize) {
+        Objects.requireNonNull(mapImplementationClass, "mapImplementationClass == null");
+        return MAP_FACTORIES.get(mapImplementationClass).create(expectedSize);
+    }
+
+    /**
+     * Die (einmalig per Reflection ermittelten) Konstruktoren einer Map-Implementierung.
+     */
+    private static final class MapFactory {
+
+        private final Class<?> type;
+        private final Constructor<?> defaultConstructor;
+        private final Constructor<?> capacityConstructor;
+
+        MapFactory(Class<?> type) {
+            this.type = type;
+            this.defaultConstructor = findConstructor(type);
+            this.capacityConstructor = findConstructor(type, int.class);
+        }
+
+        /**
+         * @param expectedSize erwartete Anzahl an Einträgen oder -1, wenn unbekannt
+         */
+        @SuppressWarnings("unchecked")
+        <K, V> Map<K, V> create(int expectedSize) {
+            try {
+                if (expectedSize >= 0 && capacityConstructor != null) {
+                    return (Map<K, V>) capacityConstructor.newInstance(toCapacity(expectedSize));
+                }
+                if (defaultConstructor == null) throw new NoSuchMethodException(type.getName() + ".<init>()");
+                return (Map<K, V>) defaultConstructor.newInstance();
+            } catch (ReflectiveOperationException ex) {
+                throw new IllegalStateException("Error creating " + type, ex);
+            }
+        }
+
+        private int toCapacity(int expectedSize) {
+            // IdentityHashMap erwartet die Anzahl der Einträge, die übrigen (HashMap, Hashtable, ...) die Tabellengröße
+            if (IdentityHashMap.class.isAssignableFrom(type)) return expectedSize;
+            return (int) Math.min(Integer.MAX_VALUE, (long) (expectedSize / 0.75D) + 1);
+        }
+
+        private static Constructor<?> findConstructor(Class<?> type, Class<?>... parameterTypes) {
+            try {
+                return type.getConstructor(parameterTypes);
+            } catch (NoSuchMethodException ex) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Empfängt die Unterschiede von {@link Maps#diff(Map, Map, DiffListener)}.
+     *
+     * @param <K> Typ der Keys
+     * @param <V> Typ der Werte
+     */
+    public interface DiffListener<K, V> {
+
+        void added(K key, V value);
+
+        void removed(K key, V value);
+
+        void changed(K key, V oldValue, V newValue);
+
     }
 
     public static class MapBuilder<K, V> {
@@ -72,6 +347,13 @@ public final class Maps {
             return this.map;
         }
 
+        /**
+         * @return eine unveränderliche, kompakte Kopie der bisher hinzugefügten Einträge, siehe {@link Maps#immutableCopyOf(Map)}
+         */
+        public Map<K, V> buildImmutable() {
+            return immutableCopyOf(this.map);
+        }
+
     }
 
 }
@@ -0,0 +1,226 @@
+package de.wazilla.utils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Eine Hash-Map von Objekten auf <code>int</code> ohne Boxing der Werte. Die Einträge liegen in zwei parallelen
+ * Arrays (Open Addressing mit linearem Sondieren). Weder {@link #get(Object)} noch {@link #put(Object, int)} eines
+ * vorhandenen Keys erzeugen Objekte; Iteration erfolgt über {@link #forEach(ObjIntConsumer)} ebenfalls ohne Boxing.
+ * <p>
+ * <code>null</code> ist als Key nicht erlaubt. Für nicht vorhandene Keys wird der <code>noEntryValue</code>
+ * (Default 0) zurückgegeben. Die Klasse ist nicht thread-safe.
+ * </p>
+ *
+ * @param <K> Typ der Keys
+ * @author Ralf Lang
+ */
+public class ObjectIntMap<K> {
+
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float LOAD_FACTOR = 0.5F;
+
+    private final int noEntryValue;
+    private Object[] keys;
+    private int[] values;
+    private int mask;
+    private int resizeAt;
+    private int assigned;
+
+    public ObjectIntMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     */
+    public ObjectIntMap(int expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * @param expectedSize Anzahl an Einträgen, die ohne Vergrößerung aufgenommen werden können
+     * @param noEntryValue Rückgabewert für nicht vorhandene Keys
+     */
+    public ObjectIntMap(int expectedSize, int noEntryValue) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize < 0!");
+        this.noEntryValue = noEntryValue;
+        allocate(PrimitiveHashing.tableSize(expectedSize, LOAD_FACTOR));
+    }
+
+    public int get(Object key) {
+        return getOrDefault(key, noEntryValue);
+    }
+
+    public int getOrDefault(Object key, int defaultValue) {
+        int slot = indexOf(key);
+        return slot >= 0 ? values[slot] : defaultValue;
+    }
+
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * @return den bisherigen Wert oder den <code>noEntryValue</code>
+     */
+    public int put(K key, int value) {
+        Objects.requireNonNull(key, "key == null");
+        int slot = PrimitiveHashing.mix(key.hashCode()) & mask;
+        Object existing;
+        while ((existing = keys[slot]) != null) {
+            if (existing.equals(key)) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return noEntryValue;
+    }
+
+    /**
+     * Addiert <code>delta</code> auf den Wert des Keys. Ist der Key nicht vorhanden, wird <code>delta</code>
+     * (ausgehend vom <code>noEntryValue</code>) gespeichert.
+     *
+     * @return den neuen Wert
+     */
+    public int addTo(K key, int delta) {
+        Objects.requireNonNull(key, "key == null");
+        int slot = PrimitiveHashing.mix(key.hashCode()) & mask;
+        Object existing;
+        while ((existing = keys[slot]) != null) {
+            if (existing.equals(key)) return values[slot] += delta;
+            slot = (slot + 1) & mask;
+        }
+        int value = noEntryValue + delta;
+        keys[slot] = key;
+        values[slot] = value;
+        if (++assigned >= resizeAt) resize();
+        return value;
+    }
+
+    /**
+     * @return den entfernten Wert oder den <code>noEntryValue</code>
+     */
+    public int remove(Object key) {
+        int slot = indexOf(key);
+        if (slot < 0) return noEntryValue;
+        int previous = values[slot];
+        shiftConflictingKeys(slot);
+        assigned--;
+        return previous;
+    }
+
+    public int size() {
+        return assigned;
+    }
+
+    public boolean isEmpty() {
+        return assigned == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, null);
+        assigned = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjIntConsumer<? super K> consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) consumer.accept((K) keys[slot], values[slot]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> {
+            if (sb.length() > 1) sb.append(", ");
+            sb.append(key).append('=').append(value);
+        });
+        return sb.append('}').toString();
+    }
+
+    private int indexOf(Object key) {
+        if (key == null) return -1;
+        int slot = PrimitiveHashing.mix(key.hashCode()) & mask;
+        Object existing;
+        while ((existing = keys[slot]) != null) {
+            if (existing.equals(key)) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, LOAD_FACTOR);
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(PrimitiveHashing.nextCapacity(keys.length));
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object key = oldKeys[i];
+            if (key == null) continue;
+            int slot = PrimitiveHashing.mix(key.hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Schließt die Lücke nach dem Entfernen, indem nachfolgende Einträge zurückgeschoben werden (keine Grabsteine).
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        int distance = 0;
+        while (true) {
+            int slot = (gapSlot + ++distance) & mask;
+            Object existing = keys[slot];
+            if (existing == null) break;
+            int idealSlot = PrimitiveHashing.mix(existing.hashCode()) & mask;
+            if (((slot - idealSlot) & mask) >= distance) {
+                keys[gapSlot] = existing;
+                values[gapSlot] = values[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = null;
+    }
+
+    /**
+     * Fluent Builder, siehe {@link Maps#objectIntBuilder(int)}.
+     *
+     * @param <K> Typ der Keys
+     */
+    public static class Builder<K> {
+
+        private final ObjectIntMap<K> map;
+
+        Builder(int expectedSize) {
+            this.map = new ObjectIntMap<>(expectedSize);
+        }
+
+        public Builder<K> put(K key, int value) {
+            this.map.put(key, value);
+            return this;
+        }
+
+        public ObjectIntMap<K> build() {
+            return this.map;
+        }
+    }
+
+}
@@ -0,0 +1,57 @@
+package de.wazilla.utils;
+
+/**
+ * Gemeinsame Hilfsmethoden der Hash-Tabellen mit Open Addressing ({@link IntIntMap}, {@link LongLongMap},
+ * {@link LongObjectMap}, {@link ObjectIntMap}).
+ */
+final class PrimitiveHashing {
+
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int MIN_CAPACITY = 4;
+    private static final int INT_PHI = 0x9E3779B9;
+    private static final long LONG_PHI = 0x9E3779B97F4A7C15L;
+
+    private PrimitiveHashing() {
+        // Utility class
+    }
+
+    /**
+     * Verteilt auch aufeinanderfolgende Keys gleichmäßig über die Tabelle (Fibonacci-Hashing).
+     */
+    static int mix(int key) {
+        int h = key * INT_PHI;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * LONG_PHI;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return die kleinste Zweierpotenz, die <code>expectedSize</code> Einträge ohne Vergrößerung aufnehmen kann
+     */
+    static int tableSize(int expectedSize, float loadFactor) {
+        long required = (long) Math.ceil(expectedSize / (double) loadFactor) + 1;
+        if (required > MAX_CAPACITY) return MAX_CAPACITY;
+        int capacity = MIN_CAPACITY;
+        while (capacity < required) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    static int resizeAt(int capacity, float loadFactor) {
+        return Math.max(1, (int) (capacity * loadFactor));
+    }
+
+    /**
+     * @return die doppelte Kapazität
+     * @throws IllegalStateException wenn die maximale Kapazität bereits erreicht ist
+     */
+    static int nextCapacity(int capacity) {
+        if (capacity >= MAX_CAPACITY) throw new IllegalStateException("Maximum capacity reached: " + capacity);
+        return capacity << 1;
+    }
+
+}
@@ -0,0 +1,342 @@
+package de.wazilla.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Liest Dateien im <code>.properties</code>-Format (inkl. Kommentaren, Fortsetzungszeilen und Escapes wie
+ * <code>\t</code> oder <code>&#92;u00e4</code>, siehe {@link java.util.Properties#load(Reader)}) ohne den Umweg über
+ * {@link java.util.Properties}. Die Einträge werden in der Reihenfolge der Datei zusammen mit ihrer Zeilennummer
+ * geliefert, entweder einzeln über {@link #next()} oder gesammelt über {@link #forEach(PropertyConsumer)} bzw.
+ * {@link #readInto(Map)}. Bei doppelten Keys gewinnt in einer Map (wie bei {@link java.util.Properties}) der letzte
+ * Wert.
+ * <p>
+ * Ein {@link InputStream} bzw. eine per {@link #open(Path)} eingeblendete Datei wird wie bei
+ * {@link java.util.Properties#load(InputStream)} als ISO-8859-1 gelesen; für andere Encodings einen {@link Reader}
+ * übergeben.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class PropertiesReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final CharSource source;
+    private final Closeable closeable;
+    private final char[] in = new char[BUFFER_SIZE];
+    private int inLimit;
+    private int inPosition;
+    private boolean eof;
+    private char[] line = new char[256];
+    private int physicalLine = 1;
+    private int lineNumber;
+    private String key;
+    private String value;
+
+    public PropertiesReader(Reader reader) {
+        Objects.requireNonNull(reader, "reader == null");
+        this.source = reader::read;
+        this.closeable = reader;
+    }
+
+    public PropertiesReader(InputStream in) {
+        Objects.requireNonNull(in, "in == null");
+        byte[] bytes = new byte[BUFFER_SIZE];
+        this.source = chars -> {
+            int read = in.read(bytes, 0, Math.min(bytes.length, chars.length));
+            for (int i = 0; i < read; i++) {
+                chars[i] = (char) (bytes[i] & 0xFF);
+            }
+            return read;
+        };
+        this.closeable = in;
+    }
+
+    /**
+     * @param buffer die Bytes (ISO-8859-1) ab der aktuellen Position bis zum Limit
+     */
+    public PropertiesReader(ByteBuffer buffer) {
+        Objects.requireNonNull(buffer, "buffer == null");
+        ByteBuffer bytes = buffer.slice();
+        this.source = chars -> {
+            if (!bytes.hasRemaining()) return -1;
+            int read = Math.min(bytes.remaining(), chars.length);
+            for (int i = 0; i < read; i++) {
+                chars[i] = (char) (bytes.get() & 0xFF);
+            }
+            return read;
+        };
+        this.closeable = null;
+    }
+
+    /**
+     * Blendet die Datei read-only ein, so dass sie ohne zusätzliche Kopie im Heap gelesen wird.
+     *
+     * @param file eine Datei im ISO-8859-1-Encoding
+     * @return einen neuen {@link PropertiesReader}
+     * @throws IOException wenn die Datei nicht geöffnet werden konnte
+     */
+    public static PropertiesReader open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new PropertiesReader(buffer);
+        }
+    }
+
+    /**
+     * Liest den nächsten Eintrag.
+     *
+     * @return <code>false</code>, wenn das Ende erreicht ist
+     * @throws IOException wenn nicht gelesen werden konnte
+     * @throws IllegalArgumentException bei einer fehlerhaften <code>\\uxxxx</code>-Sequenz
+     */
+    public boolean next() throws IOException {
+        int length = readLogicalLine();
+        if (length < 0) {
+            key = null;
+            value = null;
+            return false;
+        }
+        int keyLength = 0;
+        int valueStart = length;
+        boolean hasSeparator = false;
+        boolean precedingBackslash = false;
+        while (keyLength < length) {
+            char c = line[keyLength];
+            if ((c == '=' || c == ':') && !precedingBackslash) {
+                valueStart = keyLength + 1;
+                hasSeparator = true;
+                break;
+            } else if (isWhitespace(c) && !precedingBackslash) {
+                valueStart = keyLength + 1;
+                break;
+            }
+            precedingBackslash = c == '\\' && !precedingBackslash;
+            keyLength++;
+        }
+        while (valueStart < length) {
+            char c = line[valueStart];
+            if (!isWhitespace(c)) {
+                if (hasSeparator || (c != '=' && c != ':')) break;
+                hasSeparator = true;
+            }
+            valueStart++;
+        }
+        key = unescape(line, 0, keyLength);
+        value = unescape(line, valueStart, length - valueStart);
+        return true;
+    }
+
+    public String getKey() {
+        if (key == null) throw new NoSuchElementException();
+        return key;
+    }
+
+    public String getValue() {
+        if (key == null) throw new NoSuchElementException();
+        return value;
+    }
+
+    /**
+     * @return die Zeilennummer (ab 1), in der der aktuelle Eintrag beginnt
+     */
+    public int getLineNumber() {
+        if (key == null) throw new NoSuchElementException();
+        return lineNumber;
+    }
+
+    /**
+     * Übergibt alle (restlichen) Einträge an den Consumer.
+     *
+     * @return die Anzahl der Einträge
+     */
+    public int forEach(PropertyConsumer consumer) throws IOException {
+        int count = 0;
+        while (next()) {
+            consumer.accept(key, value, lineNumber);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Schreibt alle (restlichen) Einträge in die Map.
+     *
+     * @return die übergebene Map
+     */
+    public <M extends Map<String, String>> M readInto(M map) throws IOException {
+        while (next()) {
+            map.put(key, value);
+        }
+        return map;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closeable != null) closeable.close();
+    }
+
+    /**
+     * Liest eine logische Zeile (ohne Kommentare, führende Leerzeichen und Fortsetzungen) nach {@link #line}.
+     *
+     * @return die Länge der Zeile oder -1 am Ende
+     */
+    private int readLogicalLine() throws IOException {
+        int length = 0;
+        boolean skipWhitespace = true;
+        boolean commentLine = false;
+        boolean newLine = true;
+        boolean appendedLineBegin = false;
+        boolean precedingBackslash = false;
+        boolean skipLF = false;
+        while (true) {
+            if (inPosition >= inLimit && !fill()) {
+                if (length == 0 || commentLine) return -1;
+                return precedingBackslash ? length - 1 : length;
+            }
+            char c = in[inPosition++];
+            if (skipLF) {
+                skipLF = false;
+                if (c == '\n') continue;
+            }
+            boolean lineEnd = c == '\n' || c == '\r';
+            if (lineEnd) {
+                physicalLine++;
+                skipLF = c == '\r';
+            }
+            if (skipWhitespace) {
+                if (isWhitespace(c)) continue;
+                if (!appendedLineBegin && lineEnd) continue;
+                skipWhitespace = false;
+                appendedLineBegin = false;
+            }
+            if (newLine) {
+                newLine = false;
+                if (c == '#' || c == '!') {
+                    commentLine = true;
+                    continue;
+                }
+                lineNumber = physicalLine;
+            }
+            if (!lineEnd) {
+                if (commentLine) continue;
+                if (length == line.length) line = Arrays.copyOf(line, line.length * 2);
+                line[length++] = c;
+                precedingBackslash = c == '\\' && !precedingBackslash;
+                continue;
+            }
+            if (commentLine || length == 0) {
+                commentLine = false;
+                newLine = true;
+                skipWhitespace = true;
+                length = 0;
+                continue;
+            }
+            if (precedingBackslash) {
+                length--;
+                skipWhitespace = true;
+                appendedLineBegin = true;
+                precedingBackslash = false;
+                continue;
+            }
+            // ein direkt folgendes \n gehört noch zu dieser Zeile
+            if (skipLF) skipFollowingLF();
+            return length;
+        }
+    }
+
+    private void skipFollowingLF() throws IOException {
+        if (inPosition >= inLimit && !fill()) return;
+        if (in[inPosition] == '\n') inPosition++;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        int read;
+        do {
+            read = source.read(in);
+        } while (read == 0);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        inPosition = 0;
+        inLimit = read;
+        return true;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\f';
+    }
+
+    private static String unescape(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int backslash = offset;
+        while (backslash < end && chars[backslash] != '\\') {
+            backslash++;
+        }
+        if (backslash == end) return new String(chars, offset, length);
+        StringBuilder sb = new StringBuilder(length);
+        sb.append(chars, offset, backslash - offset);
+        int position = backslash;
+        while (position < end) {
+            char c = chars[position++];
+            if (c != '\\' || position == end) {
+                if (c != '\\') sb.append(c);
+                continue;
+            }
+            c = chars[position++];
+            if (c == 'u') {
+                if (position + 4 > end) throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    int digit = Character.digit(chars[position++], 16);
+                    if (digit < 0) throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+                    code = (code << 4) | digit;
+                }
+                sb.append((char) code);
+            } else if (c == 't') {
+                sb.append('\t');
+            } else if (c == 'r') {
+                sb.append('\r');
+            } else if (c == 'n') {
+                sb.append('\n');
+            } else if (c == 'f') {
+                sb.append('\f');
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Empfängt die Einträge von {@link PropertiesReader#forEach(PropertyConsumer)}.
+     */
+    @FunctionalInterface
+    public interface PropertyConsumer {
+
+        void accept(String key, String value, int lineNumber);
+
+    }
+
+    @FunctionalInterface
+    private interface CharSource {
+
+        int read(char[] chars) throws IOException;
+
+    }
+
+}
@@ -2,6 +2,7 @@ package de.wazilla.utils;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.*;
 
 public final class Props {
@@ -41,4 +42,29 @@ public final class Props {
         }
     }
 
+    /**
+     * Liest die Properties (ISO-8859-1) direkt per {@link PropertiesReader} in eine {@link LinkedHashMap} in der
+     * Reihenfolge der Datei, ohne den Umweg über {@link Properties}. Der Stream wird geschlossen.
+     *
+     * @param in der Stream oder <code>null</code>
+     * @return die Einträge
+     * @throws IOException wenn nicht gelesen werden konnte
+     */
+    public static Map<String, String> loadMap(InputStream in) throws IOException {
+        Map<String, String> map = new LinkedHashMap<>();
+        if (in == null) return map;
+        try (PropertiesReader reader = new PropertiesReader(in)) {
+            return reader.readInto(map);
+        }
+    }
+
+    /**
+     * Wie {@link #loadMap(InputStream)}, die Datei wird jedoch per {@link PropertiesReader#open(Path)} eingeblendet.
+     */
+    public static Map<String, String> loadMap(Path file) throws IOException {
+        try (PropertiesReader reader = PropertiesReader.open(file)) {
+            return reader.readInto(new LinkedHashMap<>());
+        }
+    }
+
 }
@@ -0,0 +1,164 @@
+package de.wazilla.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Schreibt Stacktraces im Format von {@link Throwable#printStackTrace()} in ein beliebiges {@link Appendable}, jedoch
+ * begrenzt:
+ * <ul>
+ *     <li>höchstens {@link #withMaxFrames(int) maxFrames} Frames pro {@link Throwable} (Cause bzw. Suppressed),</li>
+ *     <li>Frames, die ein Cause mit dem umschließenden Throwable gemeinsam hat, werden zu
+ *     <code>... n more</code> zusammengefasst,</li>
+ *     <li>höchstens {@link #withMaxLength(int) maxLength} Zeichen insgesamt,</li>
+ *     <li>Zyklen in Cause- und Suppressed-Ketten werden erkannt und als <code>[CIRCULAR REFERENCE: ...]</code>
+ *     ausgegeben.</li>
+ * </ul>
+ * Die Defaults können über die System-Properties <code>de.wazilla.utils.StackTraceRenderer.maxFrames</code>
+ * (Default 32) und <code>de.wazilla.utils.StackTraceRenderer.maxLength</code> (Default 16384) gesetzt werden.
+ * Eine konfigurierte Instanz ist thread-safe und kann wiederverwendet werden.
+ *
+ * @author Ralf Lang
+ */
+public class StackTraceRenderer {
+
+    private static final int DEFAULT_MAX_FRAMES = Integer.getInteger(StackTraceRenderer.class.getName() + ".maxFrames", 32);
+    private static final int DEFAULT_MAX_LENGTH = Integer.getInteger(StackTraceRenderer.class.getName() + ".maxLength", 16 * 1024);
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final String TRUNCATED = "... (truncated)";
+
+    private int maxFrames = DEFAULT_MAX_FRAMES;
+    private int maxLength = DEFAULT_MAX_LENGTH;
+    private boolean includeSuppressed = true;
+
+    public StackTraceRenderer withMaxFrames(int maxFrames) {
+        if (maxFrames < 0) throw new IllegalArgumentException("maxFrames < 0!");
+        this.maxFrames = maxFrames;
+        return this;
+    }
+
+    /**
+     * @param maxLength maximale Anzahl an Zeichen (ohne den Hinweis auf das Abschneiden)
+     */
+    public StackTraceRenderer withMaxLength(int maxLength) {
+        if (maxLength < 0) throw new IllegalArgumentException("maxLength < 0!");
+        this.maxLength = maxLength;
+        return this;
+    }
+
+    public StackTraceRenderer withSuppressed(boolean includeSuppressed) {
+        this.includeSuppressed = includeSuppressed;
+        return this;
+    }
+
+    /**
+     * @return den begrenzten Stacktrace oder <code>null</code>, wenn kein {@link Throwable} übergeben wurde
+     */
+    public String render(Throwable thrown) {
+        if (thrown == null) return null;
+        StringBuilder sb = new StringBuilder(Math.min(maxLength + TRUNCATED.length(), 1024));
+        try {
+            render(thrown, sb);
+        } catch (IOException ex) {
+            // kann bei einem StringBuilder nicht auftreten
+            throw new UncheckedIOException(ex);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Schreibt den begrenzten Stacktrace in das {@link Appendable}. Wird die maximale Länge erreicht, wird die
+     * Ausgabe mit <code>... (truncated)</code> beendet.
+     *
+     * @throws IOException wenn das {@link Appendable} nicht geschrieben werden konnte
+     */
+    public void render(Throwable thrown, Appendable out) throws IOException {
+        if (thrown == null) return;
+        LimitedAppendable limited = new LimitedAppendable(out, maxLength);
+        Set<Throwable> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        try {
+            render(limited, thrown, new StackTraceElement[0], "", "", seen);
+        } catch (LimitReachedException ex) {
+            out.append(TRUNCATED).append(LINE_SEPARATOR);
+        }
+    }
+
+    private void render(LimitedAppendable out, Throwable thrown, StackTraceElement[] enclosingTrace,
+                        String caption, String prefix, Set<Throwable> seen) throws IOException {
+        if (!seen.add(thrown)) {
+            out.append(prefix).append(caption).append("[CIRCULAR REFERENCE: ").append(String.valueOf(thrown))
+                    .append("]").append(LINE_SEPARATOR);
+            return;
+        }
+        StackTraceElement[] trace = thrown.getStackTrace();
+        int m = trace.length - 1;
+        int n = enclosingTrace.length - 1;
+        while (m >= 0 && n >= 0 && trace[m].equals(enclosingTrace[n])) {
+            m--;
+            n--;
+        }
+        int framesInCommon = trace.length - 1 - m;
+        int ownFrames = m + 1;
+        int shownFrames = Math.min(ownFrames, maxFrames);
+        out.append(prefix).append(caption).append(String.valueOf(thrown)).append(LINE_SEPARATOR);
+        for (int i = 0; i < shownFrames; i++) {
+            out.append(prefix).append("\tat ").append(trace[i].toString()).append(LINE_SEPARATOR);
+        }
+        if (ownFrames > shownFrames) {
+            out.append(prefix).append("\t... ").append(Integer.toString(ownFrames - shownFrames)).append(" frames omitted").append(LINE_SEPARATOR);
+        }
+        if (framesInCommon != 0) {
+            out.append(prefix).append("\t... ").append(Integer.toString(framesInCommon)).append(" more").append(LINE_SEPARATOR);
+        }
+        if (includeSuppressed) {
+            for (Throwable suppressed : thrown.getSuppressed()) {
+                render(out, suppressed, trace, "Suppressed: ", prefix + "\t", seen);
+            }
+        }
+        Throwable cause = thrown.getCause();
+        if (cause != null) render(out, cause, trace, "Caused by: ", prefix, seen);
+    }
+
+    /**
+     * Zählt die geschriebenen Zeichen und bricht per {@link LimitReachedException} ab, sobald das Limit erreicht ist.
+     */
+    private static final class LimitedAppendable {
+
+        private final Appendable out;
+        private int remaining;
+
+        LimitedAppendable(Appendable out, int maxLength) {
+            this.out = out;
+            this.remaining = maxLength;
+        }
+
+        LimitedAppendable append(CharSequence csq) throws IOException {
+            int length = csq.length();
+            if (length <= remaining) {
+                out.append(csq);
+                remaining -= length;
+                return this;
+            }
+            out.append(csq, 0, remaining).append(LINE_SEPARATOR);
+            remaining = 0;
+            throw new LimitReachedException();
+        }
+    }
+
+    /**
+     * Ohne Stacktrace, da nur zur Ablaufsteuerung verwendet.
+     */
+    private static final class LimitReachedException extends IOException {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+}
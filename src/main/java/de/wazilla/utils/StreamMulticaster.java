@@ -0,0 +1,382 @@
+package de.wazilla.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Liest einen {@link InputStream} genau einmal und verteilt die Daten gleichzeitig an mehrere Empfänger, z.B. an ein
+ * Archiv, eine Prüfsummenberechnung und einen Parser. Jeder Empfänger läuft in einem eigenen Thread.
+ * <p>
+ * Die Daten werden in Blöcken fester Größe weitergegeben. Es sind höchstens {@link #withMaxChunks(int)} Blöcke
+ * gleichzeitig unterwegs; ein Block wird erst wiederverwendet, wenn alle Empfänger ihn verarbeitet haben. Damit
+ * bestimmt der langsamste Empfänger das Tempo und der Speicherbedarf ist unabhängig von der Größe der Daten.
+ * </p>
+ * <p>
+ * Schlägt ein Empfänger fehl, erhält er keine weiteren Daten, die übrigen Empfänger laufen weiter. Der erste Fehler
+ * wird am Ende von {@link #copy(InputStream)} geworfen, weitere Fehler werden als "suppressed" angehängt.
+ * </p>
+ *
+ * <pre>
+ * new StreamMulticaster()
+ *     .to(archiveOut)
+ *     .to(digestOut)
+ *     .to(in -&gt; parser.parse(in))
+ *     .copy(in);
+ * </pre>
+ *
+ * @author Ralf Lang
+ */
+public class StreamMulticaster {
+
+    private static final int DEFAULT_CHUNK_SIZE = Integer.getInteger(StreamMulticaster.class.getName() + ".chunkSize", 8192);
+    private static final int DEFAULT_MAX_CHUNKS = Integer.getInteger(StreamMulticaster.class.getName() + ".maxChunks", 16);
+
+    /**
+     * Empfänger, der die Daten als {@link InputStream} liest (z.B. ein Parser).
+     */
+    @FunctionalInterface
+    public interface InputStreamConsumer {
+
+        void accept(InputStream in) throws IOException;
+
+    }
+
+    private final List<Sink> sinks = new ArrayList<>();
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private int maxChunks = DEFAULT_MAX_CHUNKS;
+    private ExecutorService executorService;
+
+    public StreamMulticaster withChunkSize(int chunkSize) {
+        if (chunkSize < 1) throw new IllegalArgumentException("chunkSize < 1!");
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public StreamMulticaster withMaxChunks(int maxChunks) {
+        if (maxChunks < 1) throw new IllegalArgumentException("maxChunks < 1!");
+        this.maxChunks = maxChunks;
+        return this;
+    }
+
+    /**
+     * @param executorService führt die Empfänger aus; muss mindestens so viele Threads wie Empfänger bereitstellen.
+     *                        Ohne Angabe wird pro Aufruf ein eigener Pool erzeugt und wieder beendet.
+     * @return diese Instanz
+     */
+    public StreamMulticaster withExecutorService(ExecutorService executorService) {
+        this.executorService = executorService;
+        return this;
+    }
+
+    /**
+     * Fügt einen {@link OutputStream} als Empfänger hinzu. Er wird (wie bei {@link Streams#copy(InputStream, OutputStream)})
+     * am Ende geschlossen.
+     *
+     * @param out der {@link OutputStream}
+     * @return diese Instanz
+     */
+    public StreamMulticaster to(OutputStream out) {
+        Objects.requireNonNull(out, "out == null");
+        this.sinks.add(new Sink(queue -> {
+            try {
+                Chunk chunk;
+                while (!(chunk = Chunk.take(queue)).isLast()) {
+                    try {
+                        out.write(chunk.data, 0, chunk.len);
+                    } finally {
+                        chunk.release();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            } finally {
+                out.close();
+            }
+        }));
+        return this;
+    }
+
+    /**
+     * Fügt einen Empfänger hinzu, der die Daten über einen {@link InputStream} liest. Liest der Empfänger nicht bis
+     * zum Ende, wird der Rest verworfen.
+     *
+     * @param consumer der Empfänger
+     * @return diese Instanz
+     */
+    public StreamMulticaster to(InputStreamConsumer consumer) {
+        Objects.requireNonNull(consumer, "consumer == null");
+        this.sinks.add(new Sink(queue -> {
+            try (ChunkInputStream in = new ChunkInputStream(queue)) {
+                consumer.accept(in);
+            }
+        }));
+        return this;
+    }
+
+    /**
+     * Liest den Stream bis zum Ende, verteilt die Daten an alle Empfänger und wartet, bis diese fertig sind. Der Stream
+     * wird anschließend geschlossen.
+     *
+     * @param in der {@link InputStream}
+     * @return die Anzahl der gelesenen Bytes
+     * @throws IOException wenn der Stream nicht gelesen werden konnte oder ein Empfänger fehlgeschlagen ist
+     */
+    public long copy(InputStream in) throws IOException {
+        Objects.requireNonNull(in, "in == null");
+        if (sinks.isEmpty()) throw new IllegalStateException("No sinks!");
+        ExecutorService executor = this.executorService != null ? this.executorService : Executors.newFixedThreadPool(sinks.size());
+        List<BlockingQueue<Chunk>> queues = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (Sink sink : sinks) {
+                // +1 für Chunk.END, mehr als maxChunks Blöcke können nicht unterwegs sein
+                BlockingQueue<Chunk> queue = new ArrayBlockingQueue<>(maxChunks + 1);
+                queues.add(queue);
+                futures.add(executor.submit(() -> sink.run(queue)));
+            }
+            IOException error = null;
+            long total = 0;
+            // auch bei RuntimeExceptions und Errors aus in.read() dürfen die Empfänger kein Chunk.END erhalten
+            boolean completed = false;
+            try {
+                total = distribute(in, queues);
+                completed = true;
+            } catch (IOException ex) {
+                error = ex;
+            } finally {
+                Streams.close(in);
+                for (BlockingQueue<Chunk> queue : queues) {
+                    putUninterruptibly(queue, completed ? Chunk.END : Chunk.FAILED);
+                }
+            }
+            error = awaitSinks(futures, error);
+            if (error != null) throw error;
+            return total;
+        } finally {
+            if (this.executorService == null) executor.shutdownNow();
+        }
+    }
+
+    private long distribute(InputStream in, List<BlockingQueue<Chunk>> queues) throws IOException {
+        BlockingQueue<byte[]> pool = new ArrayBlockingQueue<>(maxChunks);
+        int allocated = 0;
+        long total = 0;
+        try {
+            while (true) {
+                byte[] buffer = pool.poll();
+                if (buffer == null && allocated < maxChunks) {
+                    buffer = new byte[chunkSize];
+                    allocated++;
+                } else if (buffer == null) {
+                    buffer = pool.take();
+                }
+                int len = in.read(buffer);
+                if (len < 0) return total;
+                if (len == 0) {
+                    pool.add(buffer);
+                    continue;
+                }
+                total += len;
+                Chunk chunk = new Chunk(buffer, len, queues.size(), pool);
+                for (BlockingQueue<Chunk> queue : queues) {
+                    queue.put(chunk);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    private static IOException awaitSinks(List<Future<?>> futures, IOException error) {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                error = addError(error, new InterruptedIOException());
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof Error) throw (Error) cause;
+                IOException ioException = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+                error = addError(error, ioException);
+            }
+        }
+        return error;
+    }
+
+    private static IOException addError(IOException error, IOException ex) {
+        if (error == null) return ex;
+        error.addSuppressed(ex);
+        return error;
+    }
+
+    private static void putUninterruptibly(BlockingQueue<Chunk> queue, Chunk chunk) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(chunk);
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Ein Block, der an alle Empfänger verteilt und nach dem letzten {@link #release()} in den Pool zurückgegeben wird.
+     */
+    private static final class Chunk {
+
+        static final Chunk END = new Chunk(null, -1, 0, null);
+        static final Chunk FAILED = new Chunk(null, -1, 0, null);
+
+        final byte[] data;
+        final int len;
+        private final AtomicInteger references;
+        private final BlockingQueue<byte[]> pool;
+
+        Chunk(byte[] data, int len, int references, BlockingQueue<byte[]> pool) {
+            this.data = data;
+            this.len = len;
+            this.references = new AtomicInteger(references);
+            this.pool = pool;
+        }
+
+        void release() {
+            if (pool != null && references.decrementAndGet() == 0) pool.add(data);
+        }
+
+        boolean isLast() {
+            return this == END || this == FAILED;
+        }
+
+        /**
+         * Entnimmt den nächsten Block. END bzw. FAILED verbleiben in der Queue, so dass jeder weitere Aufruf sie erneut liefert.
+         */
+        static Chunk take(BlockingQueue<Chunk> queue) throws InterruptedException {
+            Chunk chunk = queue.take();
+            if (chunk.isLast()) queue.add(chunk);
+            return chunk;
+        }
+    }
+
+    @FunctionalInterface
+    private interface SinkTask {
+
+        void run(BlockingQueue<Chunk> queue) throws IOException;
+
+    }
+
+    private static final class Sink {
+
+        private final SinkTask task;
+
+        Sink(SinkTask task) {
+            this.task = task;
+        }
+
+        Void run(BlockingQueue<Chunk> queue) throws IOException {
+            try {
+                task.run(queue);
+                return null;
+            } finally {
+                // Nach einem Fehler (oder vorzeitigem Ende) den Rest verwerfen, damit die anderen Empfänger weiterlaufen
+                drain(queue);
+            }
+        }
+
+        private static void drain(BlockingQueue<Chunk> queue) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    Chunk chunk = Chunk.take(queue);
+                    if (chunk.isLast()) break;
+                    chunk.release();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Liest die Blöcke aus der Queue eines Empfängers.
+     */
+    private static final class ChunkInputStream extends InputStream {
+
+        private final BlockingQueue<Chunk> queue;
+        private Chunk current;
+        private int pos;
+
+        ChunkInputStream(BlockingQueue<Chunk> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (off < 0 || len < 0 || len > b.length - off) throw new IndexOutOfBoundsException();
+            if (len == 0) return 0;
+            if (!nextChunk()) return -1;
+            int n = Math.min(len, current.len - pos);
+            System.arraycopy(current.data, pos, b, off, n);
+            pos += n;
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return current != null && !current.isLast() ? current.len - pos : 0;
+        }
+
+        @Override
+        public void close() {
+            if (current != null && !current.isLast()) {
+                current.release();
+                current = null;
+            }
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (current != null && current.isLast()) return endOfStream();
+            if (current != null && pos < current.len) return true;
+            if (current != null) current.release();
+            try {
+                current = Chunk.take(queue);
+            } catch (InterruptedException ex) {
+                current = null;
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+            pos = 0;
+            return !current.isLast() || endOfStream();
+        }
+
+        private boolean endOfStream() throws IOException {
+            if (current == Chunk.FAILED) throw new IOException("Error reading source stream");
+            return false;
+        }
+    }
+
+}
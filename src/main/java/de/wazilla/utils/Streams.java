@@ -1,6 +1,13 @@
 package de.wazilla.utils;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public final class Streams {
 
@@ -45,5 +52,57 @@ public final class Streams {
         return out.toByteArray();
     }
 
+    /**
+     * Kopiert den Stream gleichzeitig in alle übergebenen {@link OutputStream}s (siehe {@link StreamMulticaster}), ohne
+     * die Daten vollständig im Speicher zu halten. Alle Streams werden anschließend geschlossen.
+     *
+     * @param in   der {@link InputStream}, aus dem gelesen werden soll
+     * @param outs die {@link OutputStream}s, in die geschrieben werden soll
+     * @return die Anzahl der kopierten Bytes
+     * @throws IOException wenn der Stream nicht gelesen oder in einen der Streams nicht geschrieben werden konnte
+     */
+    public static long multicast(InputStream in, OutputStream... outs) throws IOException {
+        StreamMulticaster multicaster = new StreamMulticaster();
+        for (OutputStream out : outs) {
+            multicaster.to(out);
+        }
+        return multicaster.copy(in);
+    }
+
+    /**
+     * Übergibt alle Zeilen des Streams als {@link CharSequence}-Sicht an den Consumer (siehe {@link LineReader}).
+     * Der Stream wird anschließend geschlossen.
+     *
+     * @param in       der {@link InputStream}, aus dem gelesen werden soll
+     * @param charset  das Encoding
+     * @param consumer erhält jede Zeile; die Sicht ist nur während des Aufrufs gültig
+     * @return die Anzahl der Zeilen
+     * @throws IOException wenn der Stream nicht gelesen werden konnte
+     */
+    public static long forEachLine(InputStream in, Charset charset, Consumer<? super CharSequence> consumer) throws IOException {
+        if (in == null) return 0;
+        try (LineReader reader = new LineReader(in, charset)) {
+            return reader.forEach(consumer);
+        }
+    }
+
+    /**
+     * Gibt die Zeilen der Datei als {@link Stream} zurück. Der Stream basiert auf einem {@link LineSpliterator} und
+     * lässt sich daher mit <code>parallel()</code> über mehrere Kerne verarbeiten. Der Stream muss geschlossen werden.
+     *
+     * @param file    die Datei
+     * @param charset das Encoding der Datei
+     * @return einen {@link Stream} mit den Zeilen
+     * @throws IOException wenn die Datei nicht geöffnet werden konnte
+     */
+    public static Stream<String> lines(Path file, Charset charset) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return StreamSupport.stream(new LineSpliterator(channel, charset), false).onClose(() -> close(channel));
+        } catch (IOException | RuntimeException ex) {
+            close(channel);
+            throw ex;
+        }
+    }
 
 }
@@ -11,6 +11,9 @@ import java.io.StringWriter;
  */
 public final class Throwables {
 
+    private static final int DEFAULT_FINGERPRINT_FRAMES = 5;
+    private static final int MAX_FINGERPRINT_DEPTH = 16;
+
     private Throwables() {
         // Utilityklasse!
     }
@@ -32,6 +35,19 @@ public final class Throwables {
         return sw.toString();
     }
 
+    /**
+     * Gibt den Stacktrace des übergebenen {@link Throwable} begrenzt als String zurück, siehe
+     * {@link StackTraceRenderer}. Gibt <code>null</code> zurück, wenn kein {@link Throwable} übergeben wurde.
+     *
+     * @param thrown    das aufgetretene {@link Throwable}
+     * @param maxFrames maximale Anzahl an Frames pro Cause
+     * @param maxLength maximale Länge
+     * @return den begrenzten Stacktrace als {@link String}
+     */
+    public static String toString(Throwable thrown, int maxFrames, int maxLength) {
+        return new StackTraceRenderer().withMaxFrames(maxFrames).withMaxLength(maxLength).render(thrown);
+    }
+
     /**
      * Gibt innerhalb der Exception-Hierachie das ursprüngliche aufgetretene
      * {@link Throwable} zurück. Gibt <code>null</code> zurück, wenn kein
@@ -50,4 +66,48 @@ public final class Throwables {
         return rootCause;
     }
 
+    /**
+     * Berechnet einen stabilen Fingerabdruck aus den Typen der Cause-Kette und den jeweils obersten 5 Frames, siehe
+     * {@link #fingerprint(Throwable, int)}.
+     */
+    public static long fingerprint(Throwable thrown) {
+        return fingerprint(thrown, DEFAULT_FINGERPRINT_FRAMES);
+    }
+
+    /**
+     * Berechnet einen stabilen Fingerabdruck aus den Typen der Cause-Kette (höchstens 16 Ebenen, dadurch auch bei
+     * Zyklen begrenzt) und den jeweils obersten <code>maxFrames</code> Frames. Messages fließen nicht ein, so dass
+     * gleiche Fehler mit unterschiedlichen Details denselben Fingerabdruck haben. Es werden keine Strings erzeugt,
+     * sondern nur die (gecachten) Hashcodes von Klassennamen und Frames kombiniert.
+     *
+     * @param thrown    das {@link Throwable}
+     * @param maxFrames Anzahl der obersten Frames pro Ebene
+     * @return den Fingerabdruck, 0 für <code>null</code>
+     */
+    public static long fingerprint(Throwable thrown, int maxFrames) {
+        if (thrown == null) return 0;
+        long hash = 0xCBF29CE484222325L;
+        Throwable current = thrown;
+        for (int depth = 0; current != null && depth < MAX_FINGERPRINT_DEPTH; depth++) {
+            hash = mix(hash, current.getClass().getName().hashCode());
+            StackTraceElement[] trace = current.getStackTrace();
+            int frames = Math.min(trace.length, maxFrames);
+            for (int i = 0; i < frames; i++) {
+                StackTraceElement frame = trace[i];
+                hash = mix(hash, frame.getClassName().hashCode());
+                hash = mix(hash, frame.getMethodName().hashCode());
+                hash = mix(hash, frame.getLineNumber());
+            }
+            Throwable cause = current.getCause();
+            current = cause == current ? null : cause;
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int value) {
+        hash ^= value;
+        hash *= 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
 }
@@ -12,10 +12,13 @@ import java.util.stream.Collectors;
 
 public abstract class AbstractConfiguration {
 
+    private static final boolean DEFAULT_STACKLESS_EXCEPTIONS = Boolean.getBoolean(AbstractConfiguration.class.getName() + ".stacklessExceptions");
+
     protected final List<PropertySource> propertySources;
     protected final Map<Class<?>, PropertyConverter<?>> propertyConverterMap;
     protected final Map<Class<?>, Supplier<?>> substituteValueSupplierMap;
     protected final VariableResolver variableResolver;
+    protected boolean stacklessExceptions = DEFAULT_STACKLESS_EXCEPTIONS;
 
 
     protected AbstractConfiguration(List<PropertySource> propertySources) {
@@ -51,6 +54,15 @@ public abstract class AbstractConfiguration {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * @param stacklessExceptions <code>true</code>, wenn Konvertierungsfehler als {@link ConfigurationRuntimeException}
+     *                            ohne Stacktrace geworfen werden sollen (Default über die System-Property
+     *                            <code>de.wazilla.utils.config.AbstractConfiguration.stacklessExceptions</code>)
+     */
+    protected void setStacklessExceptions(boolean stacklessExceptions) {
+        this.stacklessExceptions = stacklessExceptions;
+    }
+
     @SuppressWarnings("unchecked")
     protected <T> T getValue(String key, Class<T> type) {
         PropertyConverter<T> propertyConverter = (PropertyConverter<T>) this.propertyConverterMap.get(type);
@@ -73,7 +85,9 @@ public abstract class AbstractConfiguration {
         try {
             return propertyConverter.convert(resolvedValue);
         } catch (Exception ex) {
-            throw new ConfigurationRuntimeException("Error converting '" + resolvedValue + "' with " + propertyConverter.getClass().getName(), ex);
+            String message = "Error converting '" + resolvedValue + "' with " + propertyConverter.getClass().getName();
+            if (stacklessExceptions) throw ConfigurationRuntimeException.stackless(message, ex);
+            throw new ConfigurationRuntimeException(message, ex);
         }
     }
 
@@ -1,6 +1,5 @@
 package de.wazilla.utils.config;
 
-import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -9,6 +8,7 @@ import java.util.List;
 public class ConfigurationBuilder {
 
     private List<PropertySource> propertySources;
+    private Boolean stacklessExceptions;
 
     public ConfigurationBuilder() {
         this.propertySources = new ArrayList<>();
@@ -24,12 +24,21 @@ public class ConfigurationBuilder {
         return this;
     }
 
+    /**
+     * Siehe {@link AbstractConfiguration#setStacklessExceptions(boolean)}.
+     */
+    public ConfigurationBuilder withStacklessExceptions(boolean stacklessExceptions) {
+        this.stacklessExceptions = stacklessExceptions;
+        return this;
+    }
+
     @SuppressWarnings("unchecked")
     public <T> T build(Class<T> configurationInterface) {
         if (!configurationInterface.isInterface()) throw new IllegalStateException(configurationInterface + " is not an interface");
         ClassLoader classLoader = configurationInterface.getClassLoader();
         Class<?>[] interfaces = {configurationInterface};
-        InvocationHandler handler = new ConfigurationInvocationHandler(this.propertySources);
+        ConfigurationInvocationHandler handler = new ConfigurationInvocationHandler(this.propertySources);
+        if (this.stacklessExceptions != null) handler.setStacklessExceptions(this.stacklessExceptions);
         return (T) Proxy.newProxyInstance(classLoader, interfaces, handler);
     }
 
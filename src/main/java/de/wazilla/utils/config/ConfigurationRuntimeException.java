@@ -5,4 +5,20 @@ public class ConfigurationRuntimeException extends RuntimeException {
     public ConfigurationRuntimeException(String message, Throwable cause) {
         super(message, cause);
     }
+
+    /**
+     * @param writableStackTrace <code>false</code> für eine Exception ohne Stacktrace, die deutlich günstiger zu
+     *                           erzeugen ist (z.B. wenn Aufrufer sie für erwartete Fallback-Logik fangen). Die
+     *                           Ursache bleibt über {@link #getCause()} erreichbar.
+     */
+    protected ConfigurationRuntimeException(String message, Throwable cause, boolean writableStackTrace) {
+        super(message, cause, true, writableStackTrace);
+    }
+
+    /**
+     * @return eine Exception ohne Stacktrace, siehe {@link #ConfigurationRuntimeException(String, Throwable, boolean)}
+     */
+    public static ConfigurationRuntimeException stackless(String message, Throwable cause) {
+        return new ConfigurationRuntimeException(message, cause, false);
+    }
 }
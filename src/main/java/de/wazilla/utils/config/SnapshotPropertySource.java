@@ -0,0 +1,161 @@
+package de.wazilla.utils.config;
+
+import de.wazilla.utils.MappedStringMap;
+import de.wazilla.utils.Strings;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Eine {@link PropertySource} auf Basis eines binären Snapshots (siehe {@link MappedStringMap}), der z.B. beim Build
+ * oder ersten Start einmalig aus den per {@link de.wazilla.utils.Props} geladenen Dateien oder einer
+ * zusammengeführten Konfiguration geschrieben wird. Beim Start wird der Snapshot nur eingeblendet, statt erneut alle
+ * Dateien zu parsen.
+ * <p>
+ * Zu jedem Snapshot werden Größe und CRC32 der Quelldateien gespeichert, so dass per {@link #isUpToDate()} geprüft
+ * werden kann, ob er noch zu den Quelldateien passt.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class SnapshotPropertySource implements PropertySource, Closeable {
+
+    // Interne Einträge beginnen mit '\0' und sind daher für normale Keys nicht sichtbar
+    private static final String SOURCE_PREFIX = "\0source:";
+    // Liste aller Quelldateien, getrennt durch '\0', damit sie ohne Durchlauf aller Einträge gefunden werden
+    private static final String SOURCES_KEY = "\0sources";
+
+    private final MappedStringMap map;
+    private volatile Set<String> keys;
+
+    private SnapshotPropertySource(MappedStringMap map) {
+        this.map = map;
+    }
+
+    public static SnapshotPropertySource open(Path snapshot) throws IOException {
+        return new SnapshotPropertySource(MappedStringMap.open(snapshot));
+    }
+
+    /**
+     * Schreibt einen Snapshot der Properties.
+     *
+     * @param snapshot    die zu erzeugende Datei
+     * @param properties  die Properties
+     * @param sourceFiles die Dateien, aus denen die Properties stammen
+     * @throws IOException wenn nicht geschrieben werden konnte; ein vorhandener Snapshot bleibt dann unverändert
+     * @throws IllegalArgumentException wenn ein Key mit <code>'\0'</code> beginnt
+     */
+    public static void write(Path snapshot, Map<String, String> properties, Path... sourceFiles) throws IOException {
+        for (String key : properties.keySet()) {
+            if (key != null && key.startsWith("\0")) throw new IllegalArgumentException("Illegal key " + key);
+        }
+        MappedStringMap.Writer writer = MappedStringMap.writer(snapshot);
+        try {
+            StringBuilder sources = new StringBuilder();
+            for (Path sourceFile : sourceFiles) {
+                String name = sourceFile.toAbsolutePath().toString();
+                writer.put(SOURCE_PREFIX + name, checksum(sourceFile));
+                if (sources.length() > 0) sources.append('\0');
+                sources.append(name);
+            }
+            writer.put(SOURCES_KEY, sources.toString());
+            for (Map.Entry<String, String> entry : properties.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) continue;
+                writer.put(entry.getKey(), entry.getValue());
+            }
+        } catch (IOException | RuntimeException ex) {
+            writer.abort();
+            throw ex;
+        }
+        writer.close();
+    }
+
+    /**
+     * Schreibt einen Snapshot der zusammengeführten {@link PropertySource}s. Wie in {@link AbstractConfiguration}
+     * gewinnt pro Key der erste nicht leere Wert.
+     */
+    public static void write(Path snapshot, List<PropertySource> propertySources, Path... sourceFiles) throws IOException {
+        Map<String, String> merged = new LinkedHashMap<>();
+        for (PropertySource propertySource : propertySources) {
+            for (String key : propertySource.getKeys()) {
+                if (Strings.isNotNullOrEmpty(merged.get(key))) continue;
+                String value = propertySource.getPropertyValue(key);
+                if (Strings.isNotNullOrEmpty(value)) merged.put(key, value);
+            }
+        }
+        write(snapshot, merged, sourceFiles);
+    }
+
+    /**
+     * @return die beim Schreiben angegebenen Quelldateien (leer, wenn die Datei nicht per {@link #write} erzeugt
+     * wurde)
+     */
+    public List<Path> getSourceFiles() {
+        List<Path> sourceFiles = new ArrayList<>();
+        String sources = map.get(SOURCES_KEY);
+        if (sources == null || sources.isEmpty()) return sourceFiles;
+        for (String name : sources.split("\0")) {
+            sourceFiles.add(Paths.get(name));
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * @return <code>true</code>, wenn alle Quelldateien noch existieren und Größe und CRC32 unverändert sind
+     * @throws IOException wenn eine Quelldatei nicht gelesen werden konnte
+     */
+    public boolean isUpToDate() throws IOException {
+        for (Path sourceFile : getSourceFiles()) {
+            if (!Files.isRegularFile(sourceFile)) return false;
+            if (!checksum(sourceFile).equals(map.get(SOURCE_PREFIX + sourceFile))) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String getPropertyValue(String key) {
+        if (key == null || key.startsWith("\0")) return null;
+        return map.get(key);
+    }
+
+    @Override
+    public Set<String> getKeys() {
+        Set<String> result = keys;
+        if (result == null) {
+            Set<String> collected = new LinkedHashSet<>();
+            map.forEach((key, value) -> {
+                if (!key.startsWith("\0")) collected.add(key);
+            });
+            keys = result = Collections.unmodifiableSet(collected);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() throws IOException {
+        map.close();
+    }
+
+    private static String checksum(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            CRC32 crc = new CRC32();
+            if (size > 0) crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            return size + ":" + Long.toHexString(crc.getValue());
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package de.wazilla.utils.xml;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathException;
+import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+
+import org.w3c.dom.Node;
+
+/**
+ * Ein vorübersetzter XPath-Ausdruck, siehe {@link XPaths#compile(String, NamespaceContext)}. Da {@link XPathExpression}
+ * nicht thread-safe ist, hält jede Instanz einen kleinen Pool übersetzter Ausdrücke, die exklusiv ausgeliehen und
+ * danach zurückgegeben werden; neue werden nur übersetzt, wenn alle gerade verwendet werden. Der Pool gehört zur
+ * Instanz, so dass mit ihr (z.B. bei Verdrängung aus dem Cache) auch alle übersetzten Ausdrücke freigegeben werden.
+ * Die Instanz selbst ist thread-safe.
+ *
+ * @author Ralf Lang
+ */
+public final class CompiledXPath {
+
+    // XPathFactory und XPath sind nicht thread-safe, daher eine Instanz pro Thread
+    private static final ThreadLocal<XPath> XPATH = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private final String expression;
+    private final NamespaceContext namespaceContext;
+    private final AtomicReferenceArray<XPathExpression> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+    /**
+     * @throws XPathExpressionException wenn der Ausdruck nicht übersetzt werden kann
+     */
+    CompiledXPath(String expression, NamespaceContext namespaceContext) throws XPathExpressionException {
+        this.expression = expression;
+        this.namespaceContext = namespaceContext;
+        release(compile());
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return namespaceContext;
+    }
+
+    /**
+     * @return einen übersetzten Ausdruck zur exklusiven Verwendung; muss per {@link #release(XPathExpression)}
+     * zurückgegeben werden
+     */
+    XPathExpression acquire() throws XPathExpressionException {
+        int start = (int) Thread.currentThread().getId() & Integer.MAX_VALUE;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            XPathExpression result = pool.getAndSet((start + i) % POOL_SIZE, null);
+            if (result != null) return result;
+        }
+        return compile();
+    }
+
+    void release(XPathExpression compiled) {
+        int start = (int) Thread.currentThread().getId() & Integer.MAX_VALUE;
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (pool.compareAndSet((start + i) % POOL_SIZE, null, compiled)) return;
+        }
+        // Pool voll: der Ausdruck wird verworfen
+    }
+
+    private XPathExpression compile() throws XPathExpressionException {
+        XPath xPath = XPATH.get();
+        xPath.reset();
+        if (namespaceContext != null) xPath.setNamespaceContext(namespaceContext);
+        return xPath.compile(expression);
+    }
+
+    public <T> T evaluate(Node node, Class<T> returnType) throws XPathException {
+        return XPaths.evaluate(node, this, returnType);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+}
@@ -0,0 +1,130 @@
+package de.wazilla.utils.xml;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Ein begrenzter Pool wiederverwendbarer {@link DocumentBuilder}. Die {@link DocumentBuilderFactory} wird nur einmal
+ * ermittelt und mit denselben Sicherheitseinstellungen wie bisher in {@link XML#toDocument(InputSource)} konfiguriert
+ * (keine DOCTYPE-Deklarationen, keine externen Entities, DTDs oder Schemas). Nach jeder Verwendung wird der Builder per
+ * {@link DocumentBuilder#reset()} zurückgesetzt und, sofern im Pool Platz ist, wieder aufgenommen.
+ * <p>
+ * Die Größe des Pools kann über die System-Property <code>de.wazilla.utils.xml.DocumentBuilderPool.maxPooled</code>
+ * (Default: doppelte Anzahl der CPUs) gesetzt werden. Die Einstellungen müssen vor der ersten Verwendung erfolgen;
+ * danach ist der Pool thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class DocumentBuilderPool {
+
+    private static final int DEFAULT_MAX_POOLED = Integer.getInteger(DocumentBuilderPool.class.getName() + ".maxPooled",
+            Runtime.getRuntime().availableProcessors() * 2);
+
+    private boolean namespaceAware = true;
+    private boolean xIncludeAware = true;
+    private int maxPooled = DEFAULT_MAX_POOLED;
+    private volatile DocumentBuilderFactory factory;
+    private volatile BlockingQueue<DocumentBuilder> pool;
+
+    public DocumentBuilderPool withNamespaceAware(boolean namespaceAware) {
+        checkNotStarted();
+        this.namespaceAware = namespaceAware;
+        return this;
+    }
+
+    public DocumentBuilderPool withXIncludeAware(boolean xIncludeAware) {
+        checkNotStarted();
+        this.xIncludeAware = xIncludeAware;
+        return this;
+    }
+
+    public DocumentBuilderPool withMaxPooled(int maxPooled) {
+        if (maxPooled < 1) throw new IllegalArgumentException("maxPooled < 1!");
+        checkNotStarted();
+        this.maxPooled = maxPooled;
+        return this;
+    }
+
+    public Document parse(InputSource is) throws ParserConfigurationException, IOException, SAXException {
+        DocumentBuilder builder = acquire();
+        try {
+            return builder.parse(is);
+        } finally {
+            release(builder);
+        }
+    }
+
+    /**
+     * @return einen Builder aus dem Pool oder einen neuen; muss per {@link #release(DocumentBuilder)} zurückgegeben
+     * werden
+     */
+    public DocumentBuilder acquire() throws ParserConfigurationException {
+        DocumentBuilder builder = getPool().poll();
+        if (builder != null) return builder;
+        DocumentBuilderFactory documentBuilderFactory = getFactory();
+        // DocumentBuilderFactory ist nicht thread-safe
+        synchronized (documentBuilderFactory) {
+            return documentBuilderFactory.newDocumentBuilder();
+        }
+    }
+
+    public void release(DocumentBuilder builder) {
+        if (builder == null) return;
+        try {
+            builder.reset();
+        } catch (RuntimeException ex) {
+            // nicht zurücksetzbare Builder werden verworfen
+            return;
+        }
+        getPool().offer(builder);
+    }
+
+    private BlockingQueue<DocumentBuilder> getPool() {
+        BlockingQueue<DocumentBuilder> result = pool;
+        if (result == null) {
+            synchronized (this) {
+                if (pool == null) pool = new ArrayBlockingQueue<>(maxPooled);
+                result = pool;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("java:S6373")
+    private DocumentBuilderFactory getFactory() throws ParserConfigurationException {
+        DocumentBuilderFactory result = factory;
+        if (result == null) {
+            synchronized (this) {
+                if (factory == null) {
+                    DocumentBuilderFactory newFactory = DocumentBuilderFactory.newInstance();
+                    newFactory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+                    newFactory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+                    newFactory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+                    newFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+                    newFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
+                    newFactory.setExpandEntityReferences(false);
+                    newFactory.setNamespaceAware(namespaceAware);
+                    newFactory.setXIncludeAware(xIncludeAware);
+                    factory = newFactory;
+                }
+                result = factory;
+            }
+        }
+        return result;
+    }
+
+    private void checkNotStarted() {
+        if (factory != null || pool != null) throw new IllegalStateException("DocumentBuilderPool is already in use");
+    }
+
+}
@@ -1,8 +1,10 @@
 package de.wazilla.utils.xml;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -10,18 +12,37 @@ import java.util.Set;
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 
+import de.wazilla.utils.ConcurrentCache;
+
 /**
  * Eine Implementierung von {@link NamespaceContext} mit Hilfe einer einfachen
  * <code>Map&lt;String, List&lt;String&gt;&gt;</code>. Der Key innerhalb der Map
  * ist dabei die URI des Namespace, der Value eine
  * Liste an Prefixen.
+ * <p>
+ * Die Namespaces werden bei der Erzeugung kopiert und in zwei Hash-Indizes
+ * (Prefix &rarr; URI und URI &rarr; Prefixe) abgelegt, so dass alle Abfragen in
+ * O(1) erfolgen. Die Instanz ist unveränderlich und thread-safe; für häufig
+ * verwendete Namespaces liefert {@link #shared(Map)} eine gemeinsam genutzte
+ * Instanz.
+ * </p>
  * 
  * @author Ralf Lang
  *
  */
 public class MapNamespaceContext implements NamespaceContext {
 
-	private Map<String, Set<String>> namespaceMap;
+	/**
+	 * Ein {@link MapNamespaceContext} ohne eigene Namespaces (nur "xml" und "xmlns").
+	 */
+	public static final MapNamespaceContext EMPTY = new MapNamespaceContext(Collections.emptyMap());
+
+	private static final ConcurrentCache<Map<String, Set<String>>, MapNamespaceContext> SHARED = ConcurrentCache.<Map<String, Set<String>>, MapNamespaceContext>builder()
+			.withMaximumSize(Integer.getInteger(MapNamespaceContext.class.getName() + ".sharedCacheSize", 64))
+			.build();
+
+	private final Map<String, Set<String>> namespaceMap;
+	private final Map<String, String> prefixToNamespaceURI;
 
 	/**
 	 * Erzeugt einen neuen {@link MapNamespaceContext} mit dem übergebenen
@@ -31,28 +52,48 @@ public class MapNamespaceContext implements NamespaceContext {
 	 *                     Namespace-URI, der Value eine Liste an Prefixen.
 	 */
 	public MapNamespaceContext(Map<String, Set<String>> namespaceMap) {
-		this.namespaceMap = Collections.unmodifiableMap(Objects.requireNonNull(namespaceMap));
+		Objects.requireNonNull(namespaceMap);
+		Map<String, Set<String>> copy = new LinkedHashMap<>();
+		Map<String, String> index = new HashMap<>();
+		for (Map.Entry<String, Set<String>> entry : namespaceMap.entrySet()) {
+			Set<String> prefixes = Collections.unmodifiableSet(new LinkedHashSet<>(entry.getValue()));
+			copy.put(entry.getKey(), prefixes);
+			for (String prefix : prefixes) {
+				index.put(prefix, entry.getKey());
+			}
+		}
+		this.namespaceMap = Collections.unmodifiableMap(copy);
+		this.prefixToNamespaceURI = index;
+	}
+
+	/**
+	 * Liefert einen gemeinsam genutzten {@link MapNamespaceContext} für die
+	 * Namespaces. Für gleiche Namespaces wird (solange er im begrenzten Cache
+	 * liegt) dieselbe Instanz geliefert, so dass z.B. übersetzte XPath-Ausdrücke
+	 * (siehe {@link XPaths#compile(String, NamespaceContext)}) wiederverwendet
+	 * werden.
+	 * 
+	 * @param namespaceMap eine {@link Map} mit Namespaces. Der Key ist die
+	 *                     Namespace-URI, der Value eine Liste an Prefixen.
+	 * @return den gemeinsam genutzten {@link MapNamespaceContext}
+	 */
+	public static MapNamespaceContext shared(Map<String, Set<String>> namespaceMap) {
+		if (namespaceMap.isEmpty()) return EMPTY;
+		MapNamespaceContext context = new MapNamespaceContext(namespaceMap);
+		return SHARED.get(context.namespaceMap, key -> context);
 	}
 
 	@Override
 	public String getNamespaceURI(String prefix) {
 		if (prefix == null)
 			return null;
-		String result = XMLConstants.NULL_NS_URI;
 		if (XMLConstants.XML_NS_PREFIX.equals(prefix)) {
-			result = XMLConstants.XML_NS_URI;
+			return XMLConstants.XML_NS_URI;
 		} else if (XMLConstants.XMLNS_ATTRIBUTE.equals(prefix)) {
-			result = XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
-		} else {
-			for (String namespaceURI : this.namespaceMap.keySet()) {
-				for (String namespacePrefix : this.namespaceMap.get(namespaceURI)) {
-					if (namespacePrefix.equals(prefix)) {
-						result = namespaceURI;
-					}
-				}
-			}
+			return XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
 		}
-		return result;
+		String namespaceURI = this.prefixToNamespaceURI.get(prefix);
+		return namespaceURI != null ? namespaceURI : XMLConstants.NULL_NS_URI;
 	}
 
 	@Override
@@ -74,16 +115,33 @@ public class MapNamespaceContext implements NamespaceContext {
 			prefixes = Collections.singleton(XMLConstants.XML_NS_PREFIX);
 		} else if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(namespaceURI)) {
 			prefixes = Collections.singleton(XMLConstants.XMLNS_ATTRIBUTE);
-		} else if (namespaceMap.containsKey(namespaceURI)) {
-			prefixes = namespaceMap.get(namespaceURI);
 		} else {
-			prefixes = new HashSet<String>();
+			prefixes = namespaceMap.getOrDefault(namespaceURI, Collections.emptySet());
 		}
-		return Collections.unmodifiableCollection(prefixes).iterator();
+		return prefixes.iterator();
 	}
 
 	public Map<String, Set<String>> getNamespaceMap() {
 		return this.namespaceMap;
 	}
 
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof MapNamespaceContext))
+			return false;
+		return this.namespaceMap.equals(((MapNamespaceContext) obj).namespaceMap);
+	}
+
+	@Override
+	public int hashCode() {
+		return this.namespaceMap.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return this.namespaceMap.toString();
+	}
+
 }
@@ -0,0 +1,66 @@
+package de.wazilla.utils.xml;
+
+import javax.xml.namespace.NamespaceContext;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Sammelt beim Parsen die Namespace-Deklarationen (SAX <code>startPrefixMapping</code>) und vergibt Prefixe mit
+ * {@link NamespacePrefixes}, also wie {@link XML#createNamespaceContext(org.w3c.dom.Document)}. Alle Events werden
+ * unverändert weitergereicht.
+ *
+ * @author Ralf Lang
+ */
+class NamespaceCollector extends XMLFilterImpl {
+
+    private final NamespacePrefixes prefixes = new NamespacePrefixes();
+    private final boolean rootOnly;
+    private final boolean stopAfterRoot;
+    private boolean rootSeen;
+
+    /**
+     * @param rootOnly      nur die Deklarationen des Root-Elements berücksichtigen
+     * @param stopAfterRoot das Parsen nach dem Start-Tag des Root-Elements per {@link RootReachedException} abbrechen
+     */
+    NamespaceCollector(XMLReader parent, boolean rootOnly, boolean stopAfterRoot) {
+        super(parent);
+        this.rootOnly = rootOnly;
+        this.stopAfterRoot = stopAfterRoot;
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        if (!(rootOnly && rootSeen)) prefixes.declare(prefix, uri);
+        super.startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        // startPrefixMapping kommt vor startElement desselben Elements
+        prefixes.flush();
+        rootSeen = true;
+        if (stopAfterRoot) throw new RootReachedException();
+        super.startElement(uri, localName, qName, atts);
+    }
+
+    NamespaceContext getNamespaceContext() {
+        return prefixes.getNamespaceContext();
+    }
+
+    /**
+     * Bricht das Parsen nach dem Root-Element ab (ohne Stacktrace, da nur zur Ablaufsteuerung verwendet).
+     */
+    static final class RootReachedException extends SAXException {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
+}
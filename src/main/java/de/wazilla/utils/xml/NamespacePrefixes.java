@@ -0,0 +1,59 @@
+package de.wazilla.utils.xml;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+
+/**
+ * Vergibt die Prefixe für {@link XML#createNamespaceContext(org.w3c.dom.Document)} und den {@link NamespaceCollector},
+ * damit DOM- und SAX-Weg dasselbe Ergebnis liefern: Deklarationen ohne Prefix bekommen "default" bzw. "ns1", "ns2",...
+ * und für jede Namespace-URI gilt die letzte Deklaration in Dokument-Reihenfolge. Die Deklarationen eines Elements
+ * werden dabei nach dem Attributnamen geordnet, da DOM und SAX sie in unterschiedlicher Reihenfolge liefern.
+ *
+ * @author Ralf Lang
+ */
+class NamespacePrefixes {
+
+    private final Map<String, Set<String>> namespaceMap = new HashMap<>();
+    // Deklarationen des aktuellen Elements als Paare (Prefix, URI)
+    private final List<String[]> pending = new ArrayList<>();
+    private int defaultPrefixCounter;
+
+    /**
+     * @param prefix der deklarierte Prefix oder "" für <code>xmlns=...</code>
+     */
+    void declare(String prefix, String namespaceURI) {
+        pending.add(new String[]{prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix, namespaceURI});
+    }
+
+    /**
+     * Übernimmt die Deklarationen des aktuellen Elements.
+     */
+    void flush() {
+        if (pending.isEmpty()) return;
+        pending.sort((a, b) -> a[0].compareTo(b[0]));
+        for (String[] declaration : pending) {
+            String prefix = declaration[0];
+            if (prefix.isEmpty()) {
+                // der erste (und ggf. einzige) Default-Namespace bekommt "default" als Prefix,
+                // weitere (innere) Namespaces ohne Prefix ns<lfdNr>, also ns1, ns2,...
+                prefix = defaultPrefixCounter == 0 ? "default" : "ns" + defaultPrefixCounter;
+                defaultPrefixCounter++;
+            }
+            namespaceMap.put(declaration[1], Collections.singleton(prefix));
+        }
+        pending.clear();
+    }
+
+    NamespaceContext getNamespaceContext() {
+        flush();
+        return MapNamespaceContext.shared(namespaceMap);
+    }
+
+}
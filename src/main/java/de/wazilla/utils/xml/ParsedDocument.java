@@ -0,0 +1,31 @@
+package de.wazilla.utils.xml;
+
+import javax.xml.namespace.NamespaceContext;
+
+import org.w3c.dom.Document;
+
+/**
+ * Ein geparstes {@link Document} zusammen mit dem beim Parsen ermittelten {@link NamespaceContext}, siehe
+ * {@link XML#toDocumentWithNamespaces(org.xml.sax.InputSource, boolean)}.
+ *
+ * @author Ralf Lang
+ */
+public final class ParsedDocument {
+
+    private final Document document;
+    private final NamespaceContext namespaceContext;
+
+    ParsedDocument(Document document, NamespaceContext namespaceContext) {
+        this.document = document;
+        this.namespaceContext = namespaceContext;
+    }
+
+    public Document getDocument() {
+        return document;
+    }
+
+    public NamespaceContext getNamespaceContext() {
+        return namespaceContext;
+    }
+
+}
@@ -0,0 +1,538 @@
+package de.wazilla.utils.xml;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Wertet eine Teilmenge von XPath per StAX aus, ohne das Dokument als DOM aufzubauen. Der Speicherbedarf ist
+ * proportional zur Tiefe des Dokuments (plus der Größe der jeweils gefundenen Elemente), nicht zu seiner Größe.
+ * <p>
+ * Unterstützt werden absolute Pfade aus Kind- (<code>/</code>) und Nachfahren-Schritten (<code>//</code>) mit
+ * Elementnamen (ggf. mit Prefix aus dem {@link NamespaceContext}) oder <code>*</code>, Prädikate für Position
+ * (<code>[2]</code>) und Attribute (<code>[@id]</code>, <code>[@type='a']</code>) sowie als letzter Schritt
+ * <code>@attribut</code> oder <code>text()</code>. Beispiel: <code>//p:order[@status='open']/item[1]/@sku</code>.
+ * Wie in XPath passen Namen ohne Prefix nur auf Elemente ohne Namespace.
+ * </p>
+ * <p>
+ * Gefundene Elemente werden beim Schließen des Elements gemeldet, verschachtelte Treffer also vor dem umgebenden.
+ * Eine Instanz ist unveränderlich und thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public final class StreamingXPath {
+
+    private enum Target { ELEMENT, ATTRIBUTE, TEXT }
+
+    private final String expression;
+    private final Step[] steps;
+    private final Target target;
+    private final QNameTest targetAttribute;
+
+    private StreamingXPath(String expression, Step[] steps, Target target, QNameTest targetAttribute) {
+        this.expression = expression;
+        this.steps = steps;
+        this.target = target;
+        this.targetAttribute = targetAttribute;
+    }
+
+    public static StreamingXPath compile(String expression) {
+        return compile(expression, null);
+    }
+
+    /**
+     * @param expression       der Ausdruck
+     * @param namespaceContext zum Auflösen der Prefixe oder <code>null</code>
+     * @return den übersetzten Ausdruck
+     * @throws IllegalArgumentException wenn der Ausdruck nicht unterstützt wird oder ein Prefix unbekannt ist
+     */
+    public static StreamingXPath compile(String expression, NamespaceContext namespaceContext) {
+        Objects.requireNonNull(expression, "expression == null");
+        return new Parser(expression, namespaceContext).parse();
+    }
+
+    /**
+     * Übergibt jeden gefundenen Wert an den Consumer: bei Elementen den Textinhalt (inkl. Nachfahren), bei
+     * <code>@attribut</code> den Attributwert, bei <code>text()</code> jeden direkten Text-Knoten des Elements einzeln
+     * (wie in XPath trennen Kind-Elemente, Kommentare und Processing Instructions die Text-Knoten). Der Stream wird
+     * nicht geschlossen.
+     *
+     * @return die Anzahl der Treffer
+     */
+    public long evaluate(InputStream in, Consumer<String> consumer) throws XMLStreamException {
+        XMLStreamReader reader = XML.defaultXMLInputFactory().createXMLStreamReader(in);
+        try {
+            return evaluate(reader, consumer);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public long evaluate(XMLStreamReader reader, Consumer<String> consumer) throws XMLStreamException {
+        Objects.requireNonNull(consumer, "consumer == null");
+        return run(reader, consumer, null);
+    }
+
+    /**
+     * Übergibt jedes gefundene Element als eigenständiges DOM-Fragment (Document Element eines neuen
+     * {@link Document}) an den Consumer. Der Stream wird nicht geschlossen.
+     *
+     * @return die Anzahl der Treffer
+     * @throws IllegalStateException wenn der Ausdruck auf <code>@attribut</code> oder <code>text()</code> endet
+     */
+    public long evaluateElements(InputStream in, Consumer<Element> consumer) throws XMLStreamException {
+        XMLStreamReader reader = XML.defaultXMLInputFactory().createXMLStreamReader(in);
+        try {
+            return evaluateElements(reader, consumer);
+        } finally {
+            reader.close();
+        }
+    }
+
+    public long evaluateElements(XMLStreamReader reader, Consumer<Element> consumer) throws XMLStreamException {
+        Objects.requireNonNull(consumer, "consumer == null");
+        if (target != Target.ELEMENT) throw new IllegalStateException(expression + " does not select elements");
+        return run(reader, null, consumer);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private long run(XMLStreamReader reader, Consumer<String> valueConsumer, Consumer<Element> elementConsumer) throws XMLStreamException {
+        DocumentBuilder documentBuilder = null;
+        DocumentBuilderPool pool = XML.defaultDocumentBuilderPool();
+        try {
+            if (elementConsumer != null) documentBuilder = pool.acquire();
+            Deque<Frame> frames = new ArrayDeque<>();
+            frames.push(new Frame(new int[]{0}));
+            List<Collector> collectors = new ArrayList<>();
+            long matches = 0;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        Frame parent = frames.peek();
+                        matches += emitText(parent, valueConsumer);
+                        Frame frame = enter(parent, reader);
+                        frames.push(frame);
+                        for (Collector collector : collectors) {
+                            collector.startElement(reader);
+                        }
+                        if (frame.match) {
+                            if (target == Target.ATTRIBUTE) {
+                                String value = findAttribute(reader, targetAttribute);
+                                if (value != null) {
+                                    valueConsumer.accept(value);
+                                    matches++;
+                                }
+                            } else if (target == Target.TEXT) {
+                                frame.textTarget = true;
+                            } else {
+                                Collector collector = elementConsumer != null
+                                        ? new Collector(frames.size(), documentBuilder.newDocument())
+                                        : new Collector(frames.size(), null);
+                                collector.startElement(reader);
+                                collectors.add(collector);
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                    case XMLStreamConstants.SPACE:
+                        Frame current = frames.peek();
+                        if (current.textTarget) {
+                            if (current.text == null) current.text = new StringBuilder();
+                            current.text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                        }
+                        for (Collector collector : collectors) {
+                            collector.characters(reader);
+                        }
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        // trennen wie Kind-Elemente zwei Text-Knoten
+                        matches += emitText(frames.peek(), valueConsumer);
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        Frame ended = frames.pop();
+                        matches += emitText(ended, valueConsumer);
+                        for (int i = collectors.size() - 1; i >= 0; i--) {
+                            Collector collector = collectors.get(i);
+                            if (collector.depth == frames.size() + 1) {
+                                collectors.remove(i);
+                                if (elementConsumer != null) {
+                                    elementConsumer.accept(collector.document.getDocumentElement());
+                                } else {
+                                    valueConsumer.accept(collector.text.toString());
+                                }
+                                matches++;
+                            } else {
+                                collector.endElement();
+                            }
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            return matches;
+        } catch (ParserConfigurationException ex) {
+            throw new XMLStreamException(ex);
+        } finally {
+            pool.release(documentBuilder);
+        }
+    }
+
+    /**
+     * Meldet den bisher gesammelten Text als eigenen Wert, da XPath <code>text()</code> je Text-Knoten einen Treffer
+     * liefert (bei <code>&lt;b&gt;y&lt;c/&gt;z&lt;/b&gt;</code> also <code>y</code> und <code>z</code>). Ohne
+     * Text-Knoten gibt es wie in XPath keinen Treffer.
+     *
+     * @return die Anzahl der Treffer (0 oder 1)
+     */
+    private static int emitText(Frame frame, Consumer<String> valueConsumer) {
+        if (frame.text == null) return 0;
+        valueConsumer.accept(frame.text.toString());
+        frame.text = null;
+        return 1;
+    }
+
+    private Frame enter(Frame parent, XMLStreamReader reader) {
+        // jeder Zustand kann sich selbst (bei //) und seinen Nachfolger aktivieren
+        int[] states = new int[parent.states.length * 2];
+        int count = 0;
+        boolean match = false;
+        for (int state : parent.states) {
+            Step step = steps[state];
+            if (step.descendant) count = add(states, count, state);
+            if (step.name.matches(reader.getNamespaceURI(), reader.getLocalName()) && step.test(parent, state, reader)) {
+                if (state + 1 == steps.length) {
+                    match = true;
+                } else {
+                    count = add(states, count, state + 1);
+                }
+            }
+        }
+        Frame frame = new Frame(count == states.length ? states : Arrays.copyOf(states, count));
+        frame.match = match;
+        return frame;
+    }
+
+    private static int add(int[] states, int count, int state) {
+        for (int i = 0; i < count; i++) {
+            if (states[i] == state) return count;
+        }
+        states[count] = state;
+        return count + 1;
+    }
+
+    private static String findAttribute(XMLStreamReader reader, QNameTest name) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String namespaceURI = reader.getAttributeNamespace(i);
+            if (name.matches(namespaceURI, reader.getAttributeLocalName(i))) return reader.getAttributeValue(i);
+        }
+        return null;
+    }
+
+    private static final class Frame {
+
+        final int[] states;
+        // Position der bisherigen passenden Geschwister pro (Zustand, Prädikat), nur bei Positions-Prädikaten
+        Map<Long, int[]> positions;
+        boolean match;
+        boolean textTarget;
+        StringBuilder text;
+
+        Frame(int[] states) {
+            this.states = states;
+        }
+
+        int nextPosition(int state, int predicate) {
+            if (positions == null) positions = new HashMap<>();
+            int[] position = positions.computeIfAbsent(((long) state << 32) | predicate, key -> new int[1]);
+            return ++position[0];
+        }
+    }
+
+    /**
+     * Sammelt den Textinhalt bzw. baut das DOM-Fragment eines gefundenen Elements auf.
+     */
+    private static final class Collector {
+
+        final int depth;
+        final Document document;
+        final StringBuilder text;
+        Node current;
+
+        Collector(int depth, Document document) {
+            this.depth = depth;
+            this.document = document;
+            this.text = document == null ? new StringBuilder() : null;
+            this.current = document;
+        }
+
+        void startElement(XMLStreamReader reader) {
+            if (document == null) return;
+            String prefix = reader.getPrefix();
+            String localName = reader.getLocalName();
+            String qualifiedName = prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+            String namespaceURI = reader.getNamespaceURI();
+            Element element = document.createElementNS(namespaceURI == null || namespaceURI.isEmpty() ? null : namespaceURI, qualifiedName);
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                String namespacePrefix = reader.getNamespacePrefix(i);
+                String name = namespacePrefix == null || namespacePrefix.isEmpty() ? XMLConstants.XMLNS_ATTRIBUTE : XMLConstants.XMLNS_ATTRIBUTE + ":" + namespacePrefix;
+                element.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, name, reader.getNamespaceURI(i));
+            }
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                String attributePrefix = reader.getAttributePrefix(i);
+                String attributeName = reader.getAttributeLocalName(i);
+                String attributeNamespace = reader.getAttributeNamespace(i);
+                if (attributePrefix != null && !attributePrefix.isEmpty()) attributeName = attributePrefix + ":" + attributeName;
+                element.setAttributeNS(attributeNamespace == null || attributeNamespace.isEmpty() ? null : attributeNamespace, attributeName, reader.getAttributeValue(i));
+            }
+            current.appendChild(element);
+            current = element;
+        }
+
+        void characters(XMLStreamReader reader) {
+            if (document == null) {
+                text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+            } else {
+                current.appendChild(document.createTextNode(reader.getText()));
+            }
+        }
+
+        void endElement() {
+            if (document != null) current = current.getParentNode();
+        }
+    }
+
+    private static final class QNameTest {
+
+        // null = beliebiger Namespace (nur bei *)
+        final String namespaceURI;
+        // null = beliebiger Name
+        final String localName;
+
+        QNameTest(String namespaceURI, String localName) {
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+        }
+
+        boolean matches(String namespaceURI, String localName) {
+            if (this.localName != null && !this.localName.equals(localName)) return false;
+            if (this.namespaceURI == null) return true;
+            return this.namespaceURI.equals(namespaceURI == null ? XMLConstants.NULL_NS_URI : namespaceURI);
+        }
+    }
+
+    private static final class Predicate {
+
+        // > 0 bei Positions-Prädikaten
+        final int position;
+        final QNameTest attribute;
+        final String value;
+
+        Predicate(int position, QNameTest attribute, String value) {
+            this.position = position;
+            this.attribute = attribute;
+            this.value = value;
+        }
+    }
+
+    private static final class Step {
+
+        final boolean descendant;
+        final QNameTest name;
+        final Predicate[] predicates;
+
+        Step(boolean descendant, QNameTest name, Predicate[] predicates) {
+            this.descendant = descendant;
+            this.name = name;
+            this.predicates = predicates;
+        }
+
+        /**
+         * Prüft die Prädikate der Reihe nach; eine Position zählt (wie in XPath) nur die Geschwister, die alle
+         * vorherigen Prädikate erfüllen.
+         */
+        boolean test(Frame parent, int state, XMLStreamReader reader) {
+            for (int i = 0; i < predicates.length; i++) {
+                Predicate predicate = predicates[i];
+                if (predicate.position > 0) {
+                    if (parent.nextPosition(state, i) != predicate.position) return false;
+                } else {
+                    String value = findAttribute(reader, predicate.attribute);
+                    if (value == null || (predicate.value != null && !predicate.value.equals(value))) return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Parser {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+        private int position;
+
+        Parser(String expression, NamespaceContext namespaceContext) {
+            this.expression = expression.trim();
+            this.namespaceContext = namespaceContext;
+        }
+
+        StreamingXPath parse() {
+            List<Step> steps = new ArrayList<>();
+            Target target = Target.ELEMENT;
+            QNameTest targetAttribute = null;
+            if (!expression.startsWith("/")) throw error("only absolute paths are supported");
+            while (position < expression.length()) {
+                if (target != Target.ELEMENT) throw error("@attribute and text() must be the last step");
+                expect('/');
+                boolean descendant = position < expression.length() && expression.charAt(position) == '/';
+                if (descendant) position++;
+                if (expression.startsWith("text()", position)) {
+                    if (descendant || steps.isEmpty()) throw error("text() must follow an element step");
+                    position += "text()".length();
+                    target = Target.TEXT;
+                } else if (position < expression.length() && expression.charAt(position) == '@') {
+                    if (descendant || steps.isEmpty()) throw error("@attribute must follow an element step");
+                    position++;
+                    targetAttribute = attributeName(readName());
+                    target = Target.ATTRIBUTE;
+                } else {
+                    QNameTest name = elementName(readName());
+                    List<Predicate> predicates = new ArrayList<>();
+                    while (position < expression.length() && expression.charAt(position) == '[') {
+                        position++;
+                        predicates.add(readPredicate());
+                        expect(']');
+                    }
+                    steps.add(new Step(descendant, name, predicates.toArray(new Predicate[0])));
+                }
+            }
+            if (steps.isEmpty()) throw error("no element step");
+            return new StreamingXPath(expression, steps.toArray(new Step[0]), target, targetAttribute);
+        }
+
+        private Predicate readPredicate() {
+            if (position < expression.length() && expression.charAt(position) == '@') {
+                position++;
+                QNameTest attribute = attributeName(readName());
+                String value = null;
+                if (position < expression.length() && expression.charAt(position) == '=') {
+                    position++;
+                    if (position >= expression.length()) throw error("value expected");
+                    char quote = expression.charAt(position);
+                    if (quote != '\'' && quote != '"') throw error("quoted value expected");
+                    int end = expression.indexOf(quote, position + 1);
+                    if (end < 0) throw error("unterminated value");
+                    value = expression.substring(position + 1, end);
+                    position = end + 1;
+                }
+                return new Predicate(0, attribute, value);
+            }
+            int start = position;
+            while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+                position++;
+            }
+            if (start == position) throw error("position or @attribute expected");
+            int value = Integer.parseInt(expression.substring(start, position));
+            if (value < 1) throw error("position must be >= 1");
+            return new Predicate(value, null, null);
+        }
+
+        /**
+         * Liest <code>*</code>, <code>prefix:*</code>, einen NCName oder einen QName. Nicht unterstützte Syntax
+         * (Funktionen und Knotentests, <code>.</code>/<code>..</code>, Achsen, <code>|</code>, Leerzeichen) führt zu
+         * einem Fehler, statt stillschweigend nichts zu finden.
+         */
+        private String readName() {
+            int start = position;
+            if (peek('*')) {
+                position++;
+            } else {
+                readNCName();
+                if (peek(':')) {
+                    if (position + 1 < expression.length() && expression.charAt(position + 1) == ':') throw error("axes are not supported");
+                    position++;
+                    if (peek('*')) position++; else readNCName();
+                }
+            }
+            if (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (c == '(') throw error("functions and node tests other than text() are not supported");
+                if (c != '/' && c != '[' && c != ']' && c != '=') throw error("unexpected '" + c + "'");
+            }
+            return expression.substring(start, position);
+        }
+
+        private void readNCName() {
+            if (position >= expression.length()) throw error("name expected");
+            char first = expression.charAt(position);
+            if (first == '.') throw error("'.' and '..' are not supported");
+            if (!Character.isLetter(first) && first != '_') throw error("name expected");
+            position++;
+            while (position < expression.length()) {
+                char c = expression.charAt(position);
+                if (!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.' && c != '\u00B7') break;
+                position++;
+            }
+        }
+
+        private boolean peek(char c) {
+            return position < expression.length() && expression.charAt(position) == c;
+        }
+
+        private QNameTest elementName(String qualifiedName) {
+            if ("*".equals(qualifiedName)) return new QNameTest(null, null);
+            return resolve(qualifiedName);
+        }
+
+        private QNameTest attributeName(String qualifiedName) {
+            if ("*".equals(qualifiedName)) return new QNameTest(null, null);
+            return resolve(qualifiedName);
+        }
+
+        private QNameTest resolve(String qualifiedName) {
+            int index = qualifiedName.indexOf(':');
+            if (index < 0) return new QNameTest(XMLConstants.NULL_NS_URI, qualifiedName);
+            String prefix = qualifiedName.substring(0, index);
+            String namespaceURI = namespaceContext != null ? namespaceContext.getNamespaceURI(prefix) : null;
+            if (namespaceURI == null || namespaceURI.isEmpty()) throw error("unknown prefix '" + prefix + "'");
+            String localName = qualifiedName.substring(index + 1);
+            return new QNameTest(namespaceURI, "*".equals(localName) ? null : localName);
+        }
+
+        private void expect(char c) {
+            if (position >= expression.length() || expression.charAt(position) != c) throw error("'" + c + "' expected");
+            position++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Unsupported expression '" + expression + "' at " + position + ": " + message);
+        }
+    }
+
+}
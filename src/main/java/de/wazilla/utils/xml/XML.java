@@ -7,19 +7,32 @@ import org.w3c.dom.traversal.NodeFilter;
 import org.w3c.dom.traversal.NodeIterator;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import javax.xml.XMLConstants;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.sax.SAXSource;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.BiConsumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -27,7 +40,17 @@ public final class XML {
 
     private static final String CLASSPATH_PROTOCOL = "classpath:";
     private static final String DEFAULT_XML_ENCODING = StandardCharsets.UTF_8.name();
-    private static final Pattern ENCODING_PATTERN = Pattern.compile(" encoding=[\'|\"](.*?)[\'|\"]");
+    private static final Pattern ENCODING_PATTERN = Pattern.compile("\\sencoding\\s*=\\s*[\'|\"](.*?)[\'|\"]");
+    /**
+     * Maximale Anzahl an Bytes, die zur Ermittlung des Encodings betrachtet werden.
+     */
+    public static final int PROLOG_SIZE = 1024;
+    private static final DocumentBuilderPool DEFAULT_DOCUMENT_BUILDER_POOL = new DocumentBuilderPool();
+    // nach der Konfiguration nur noch lesend verwendet, createXMLStreamReader ist damit thread-safe
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXMLInputFactory();
+    // SAXParserFactory und TransformerFactory sind nicht thread-safe, Zugriffe werden synchronisiert
+    private static final SAXParserFactory SAX_PARSER_FACTORY = createSAXParserFactory();
+    private static final TransformerFactory TRANSFORMER_FACTORY = createTransformerFactory();
 
     private XML() {
         // Utility class
@@ -51,8 +74,7 @@ public final class XML {
      */
     public static NamespaceContext createNamespaceContext(Document document) {
         if (document == null) return null;
-        Map<String, Set<String>> namespaceMap = new HashMap<>();
-        int defaultPrefixCounter = 0;
+        NamespacePrefixes prefixes = new NamespacePrefixes();
         DocumentTraversal traversal = (DocumentTraversal) document;
         NodeIterator nodeIterator = traversal.createNodeIterator(document, NodeFilter.SHOW_ELEMENT, null, false);
         Node node = null;
@@ -63,30 +85,111 @@ public final class XML {
                 for (int i = 0; i < attributes.getLength(); i++) {
                     Node attributeNode = attributes.item(i);
                     String name = attributeNode.getNodeName();
-                    String value = attributeNode.getNodeValue();
-                    if (name.startsWith(XMLConstants.XMLNS_ATTRIBUTE)) {
-                        String prefix = null;
-                        int index = name.indexOf(':');
-                        if (index < 0) {
-                            if (defaultPrefixCounter == 0) {
-                                // der erste (und ggf. einzige) Default-Namespace
-                                // bekommt "default" als Prefix
-                                prefix = "default";
-                            } else {
-                                // Wenn weitere (innere) Namespaces ohne Prefix gefunden werden
-                                // bekommen diese ns<lfdNr> als Prefix, also ns1, ns2,...
-                                prefix = "ns" + defaultPrefixCounter;
-                            }
-                            defaultPrefixCounter++;
-                        } else {
-                            prefix = name.substring(index + 1);
-                        }
-                        namespaceMap.put(value, Collections.singleton(prefix));
+                    if (name.equals(XMLConstants.XMLNS_ATTRIBUTE)) {
+                        prefixes.declare(XMLConstants.DEFAULT_NS_PREFIX, attributeNode.getNodeValue());
+                    } else if (name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) {
+                        prefixes.declare(name.substring(XMLConstants.XMLNS_ATTRIBUTE.length() + 1), attributeNode.getNodeValue());
                     }
                 }
+                prefixes.flush();
+            }
+        }
+        return prefixes.getNamespaceContext();
+    }
+
+    /**
+     * Erzeugt einen {@link NamespaceContext} wie {@link #createNamespaceContext(Document)}, jedoch direkt beim
+     * (SAX-)Parsen, ohne ein DOM aufzubauen.
+     *
+     * @param is              das XML
+     * @param rootElementOnly <code>true</code>, um nur die Deklarationen des Root-Elements zu berücksichtigen; das
+     *                        Parsen wird dann nach dem Start-Tag des Root-Elements abgebrochen.
+     * @return den erzeugten {@link NamespaceContext}
+     */
+    public static NamespaceContext createNamespaceContext(InputSource is, boolean rootElementOnly) throws ParserConfigurationException, IOException, SAXException {
+        NamespaceCollector collector = new NamespaceCollector(newXMLReader(), rootElementOnly, rootElementOnly);
+        try {
+            collector.parse(is);
+        } catch (NamespaceCollector.RootReachedException ex) {
+            // gewollter Abbruch nach dem Root-Element
+        }
+        return collector.getNamespaceContext();
+    }
+
+    /**
+     * Parst das XML und ermittelt dabei (ohne weitere Traversierung des Dokuments) den {@link NamespaceContext} wie
+     * {@link #createNamespaceContext(Document)}. Der DOM wird per Identity-Transformation aus den SAX-Events
+     * aufgebaut.
+     *
+     * @param is              das XML
+     * @param rootElementOnly <code>true</code>, um nur die Deklarationen des Root-Elements zu berücksichtigen
+     * @return das {@link Document} zusammen mit dem {@link NamespaceContext}
+     */
+    public static ParsedDocument toDocumentWithNamespaces(InputSource is, boolean rootElementOnly) throws ParserConfigurationException, IOException, SAXException {
+        NamespaceCollector collector = new NamespaceCollector(newXMLReader(), rootElementOnly, false);
+        DOMResult result = new DOMResult();
+        try {
+            Transformer transformer;
+            synchronized (TRANSFORMER_FACTORY) {
+                transformer = TRANSFORMER_FACTORY.newTransformer();
             }
+            transformer.transform(new SAXSource(collector, is), result);
+        } catch (TransformerConfigurationException ex) {
+            ParserConfigurationException pce = new ParserConfigurationException(ex.getMessage());
+            pce.initCause(ex);
+            throw pce;
+        } catch (TransformerException ex) {
+            Throwable cause = ex.getException() != null ? ex.getException() : ex.getCause();
+            if (cause instanceof SAXException) throw (SAXException) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new SAXException(ex);
         }
-        return new MapNamespaceContext(namespaceMap);
+        return new ParsedDocument((Document) result.getNode(), collector.getNamespaceContext());
+    }
+
+    private static XMLReader newXMLReader() throws ParserConfigurationException, SAXException {
+        synchronized (SAX_PARSER_FACTORY) {
+            return SAX_PARSER_FACTORY.newSAXParser().getXMLReader();
+        }
+    }
+
+    private static SAXParserFactory createSAXParserFactory() {
+        SAXParserFactory factory = SAXParserFactory.newInstance();
+        try {
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+        } catch (ParserConfigurationException | SAXException ex) {
+            throw new IllegalStateException("Error configuring " + factory.getClass().getName(), ex);
+        }
+        factory.setNamespaceAware(true);
+        factory.setXIncludeAware(true);
+        return factory;
+    }
+
+    /**
+     * Namespace-aware, ohne DTDs und externe Entities (wie {@link #createSAXParserFactory()}) und ohne Zusammenfassen
+     * von Text-Events, damit große Texte nicht am Stück gepuffert werden.
+     */
+    private static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
+    private static TransformerFactory createTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException ex) {
+            throw new IllegalStateException("Error configuring " + factory.getClass().getName(), ex);
+        }
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        return factory;
     }
 
     /**
@@ -99,9 +202,65 @@ public final class XML {
      */
     public static String fromStream(final InputStream in) throws IOException {
         if (in == null) return null;
-        byte[] bytes = Streams.read(in);
-        String encoding = XML.getEncoding(bytes);
-        return new String(bytes, encoding);
+        try (Reader reader = toReader(in)) {
+            // available() liefert bei Dateien und byte[] die (ungefähre) Größe, so dass der Builder nicht wachsen muss
+            StringBuilder sb = new StringBuilder(Math.max(in.available(), 16));
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Liest XML aus dem Stream und schreibt es dekodiert in den {@link Writer}, ohne das Dokument vollständig im
+     * Speicher zu halten. Das Encoding wird wie bei {@link #fromStream(InputStream)} aus dem Prolog ermittelt. Der
+     * Stream wird anschließend geschlossen, der {@link Writer} nicht.
+     *
+     * @param in  der {@link InputStream} aus dem gelesen werden soll.
+     * @param out der {@link Writer}, in den geschrieben werden soll.
+     * @return die Anzahl der geschriebenen Zeichen
+     * @throws IOException wenn nicht gelesen oder geschrieben werden konnte.
+     */
+    public static long fromStream(final InputStream in, final Writer out) throws IOException {
+        if (in == null) return 0;
+        try (Reader reader = toReader(in)) {
+            char[] buffer = new char[8192];
+            long count = 0;
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+                count += read;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Liefert einen {@link Reader}, der das XML aus dem Stream schrittweise dekodiert. Das Encoding wird per
+     * {@link #getEncoding(PushbackInputStream)} nur aus dem Prolog ermittelt, ein Byte Order Mark wird übersprungen.
+     *
+     * @param in der {@link InputStream} aus dem gelesen werden soll.
+     * @return einen gepufferten {@link Reader}, der beim Schließen auch den Stream schließt.
+     * @throws IOException wenn nicht gelesen werden konnte oder das Encoding nicht unterstützt wird.
+     */
+    public static Reader toReader(final InputStream in) throws IOException {
+        PushbackInputStream pushbackIn = new PushbackInputStream(in, PROLOG_SIZE);
+        String encoding = getEncoding(pushbackIn);
+        Charset charset;
+        try {
+            charset = Charset.forName(encoding);
+        } catch (IllegalArgumentException ex) {
+            UnsupportedEncodingException unsupported = new UnsupportedEncodingException(encoding);
+            unsupported.initCause(ex);
+            throw unsupported;
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(pushbackIn, charset));
+        reader.mark(1);
+        if (reader.read() != '\uFEFF') reader.reset();
+        return reader;
     }
 
     /**
@@ -124,27 +283,102 @@ public final class XML {
     /**
      * Ermittelt das XML-Encoding anhand der Angaben in der XML-Deklaration des übergebenen XMLs. Wenn im XML keine Deklaration
      * <code>&lt;?xml .../&gt;</code> vorhanden ist oder diese keine Angabe zum Encoding macht, wird entsprechend der Spezifikation
-     * UTF-8 als Default zurückgegebem.
+     * UTF-8 als Default zurückgegebem. Ein Byte Order Mark bzw. die Byte-Muster von UTF-16/32 haben Vorrang vor der
+     * Deklaration. Betrachtet werden nur die ersten {@link #PROLOG_SIZE} Bytes.
      *
      * @param bytes das XML als byte[]
      * @return die Encoding-Angabe oder <code>null</code>, wenn nichts übergeben wurde.
      */
     public static String getEncoding(byte[] bytes) {
         if (bytes == null) return null;
-        // Lt. XML Spec besteht die XML-Declaration nur aus ASCII-Zeichen
-        // da zum ermitteln des Encoding alles au�erhalb der Declaration egal ist
-        // wandelt wir das byte[] einfach (ggf. fehlerhaft) in einen ASCII-String um.
-        // Daraus wird dann das Encoding herausgelesen.
-        // Hinzu kommt, dass US-ASCII zu den Charsets geh�rt, die von jeder Java -
-        // Implementierung unterst�tzt werden muss. Siehe
-        // https://docs.oracle.com/javase/8/docs/technotes/guides/intl/encoding.doc.html
-        // Und die Klasse java.nio.charset.StandardCharsets
-        // Siehe auch:
-        // Extensible Markup Language (XML) 1.0 (Fifth Edition) (https://www.w3.org/TR/xml/)
-        // Appendix F Autodetection of Character Encodings (Non-Normative):
-        // "Because the contents of the encoding declaration are restricted to characters from the ASCII repertoire[...]
-        String xml = new String(bytes, StandardCharsets.US_ASCII);
-        return getEncoding(xml);
+        return detectEncoding(bytes, Math.min(bytes.length, PROLOG_SIZE));
+    }
+
+    /**
+     * Ermittelt das XML-Encoding wie {@link #getEncoding(byte[])}, betrachtet aber nur die ersten (höchstens
+     * {@link #PROLOG_SIZE}) Bytes ab der aktuellen Position. Die Position des Buffers wird nicht verändert.
+     *
+     * @param buffer das XML
+     * @return die Encoding-Angabe oder <code>null</code>, wenn nichts übergeben wurde.
+     */
+    public static String getEncoding(ByteBuffer buffer) {
+        if (buffer == null) return null;
+        byte[] prolog = new byte[Math.min(buffer.remaining(), PROLOG_SIZE)];
+        buffer.duplicate().get(prolog);
+        return detectEncoding(prolog, prolog.length);
+    }
+
+    /**
+     * Ermittelt das XML-Encoding wie {@link #getEncoding(byte[])}, liest dazu aber nur den Anfang des Streams (bis zum
+     * ersten <code>&gt;</code>, höchstens {@link #PROLOG_SIZE} Bytes) und stellt ihn anschließend per
+     * {@link PushbackInputStream#unread(byte[], int, int)} zurück. Der Stream muss daher mit einem Puffer von
+     * mindestens {@link #PROLOG_SIZE} Bytes erzeugt worden sein.
+     *
+     * @param in der Stream
+     * @return die Encoding-Angabe oder <code>null</code>, wenn nichts übergeben wurde.
+     * @throws IOException wenn nicht gelesen werden konnte oder der Puffer des Streams zu klein ist
+     */
+    public static String getEncoding(PushbackInputStream in) throws IOException {
+        if (in == null) return null;
+        byte[] prolog = new byte[PROLOG_SIZE];
+        int length = 0;
+        boolean endFound = false;
+        while (length < prolog.length && !endFound) {
+            int read = in.read(prolog, length, prolog.length - length);
+            if (read < 0) break;
+            for (int i = length; i < length + read; i++) {
+                if (prolog[i] == '>') endFound = true;
+            }
+            length += read;
+        }
+        if (length > 0) in.unread(prolog, 0, length);
+        return detectEncoding(prolog, length);
+    }
+
+    /**
+     * Siehe "Appendix F Autodetection of Character Encodings" der XML-Spezifikation: zunächst Byte Order Mark bzw.
+     * die Byte-Muster von <code>&lt;?xml</code> in UTF-16/32, danach die Encoding-Angabe der XML-Deklaration. Diese
+     * besteht nur aus ASCII-Zeichen und steht am Anfang des Dokuments, daher genügt es, den Prolog zu dekodieren.
+     */
+    private static String detectEncoding(byte[] prolog, int length) {
+        String family = null;
+        int bomLength = 0;
+        int b0 = length > 0 ? prolog[0] & 0xFF : -1;
+        int b1 = length > 1 ? prolog[1] & 0xFF : -1;
+        int b2 = length > 2 ? prolog[2] & 0xFF : -1;
+        int b3 = length > 3 ? prolog[3] & 0xFF : -1;
+        if (b0 == 0x00 && b1 == 0x00 && b2 == 0xFE && b3 == 0xFF) {
+            family = "UTF-32BE";
+            bomLength = 4;
+        } else if (b0 == 0xFF && b1 == 0xFE && b2 == 0x00 && b3 == 0x00) {
+            family = "UTF-32LE";
+            bomLength = 4;
+        } else if (b0 == 0xFE && b1 == 0xFF) {
+            family = StandardCharsets.UTF_16BE.name();
+            bomLength = 2;
+        } else if (b0 == 0xFF && b1 == 0xFE) {
+            family = StandardCharsets.UTF_16LE.name();
+            bomLength = 2;
+        } else if (b0 == 0xEF && b1 == 0xBB && b2 == 0xBF) {
+            family = StandardCharsets.UTF_8.name();
+            bomLength = 3;
+        } else if (b0 == 0x00 && b1 == 0x00 && b2 == 0x00 && b3 == '<') {
+            family = "UTF-32BE";
+        } else if (b0 == '<' && b1 == 0x00 && b2 == 0x00 && b3 == 0x00) {
+            family = "UTF-32LE";
+        } else if (b0 == 0x00 && b1 == '<' && b2 == 0x00 && b3 == '?') {
+            family = StandardCharsets.UTF_16BE.name();
+        } else if (b0 == '<' && b1 == 0x00 && b2 == '?' && b3 == 0x00) {
+            family = StandardCharsets.UTF_16LE.name();
+        }
+        // Bei BOM bzw. UTF-16/32 ist die Byte-Reihenfolge verbindlich, die Deklaration kann z.B. nur "UTF-16" sein
+        if (family != null) return family;
+        String prologText = new String(prolog, bomLength, length - bomLength, StandardCharsets.US_ASCII);
+        if (!prologText.startsWith("<?xml")) return DEFAULT_XML_ENCODING;
+        int endIndex = prologText.indexOf("?>");
+        if (endIndex == -1) throw new IllegalStateException("Kein Ende der XML-Deklaration gefunden! XML: " + prologText + "!");
+        Matcher matcher = ENCODING_PATTERN.matcher(prologText.substring(0, endIndex));
+        return matcher.find() ? matcher.group(1) : DEFAULT_XML_ENCODING;
     }
 
     /**
@@ -195,19 +429,178 @@ public final class XML {
         }
     }
 
-    @SuppressWarnings("java:S6373")
+    /**
+     * Parst das XML mit einem {@link DocumentBuilder} aus einem gemeinsamen {@link DocumentBuilderPool}
+     * (namespace- und XInclude-aware).
+     */
     public static Document toDocument(InputSource is) throws ParserConfigurationException, IOException, SAXException {
-        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-        factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-        factory.setFeature("http://xml.org/sax/features/external-general-entities", false);
-        factory.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
-        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_SCHEMA, "");
-        factory.setExpandEntityReferences(false);
-        factory.setNamespaceAware(true);
-        factory.setXIncludeAware(true);
-        DocumentBuilder builder = factory.newDocumentBuilder();
-        return builder.parse(is);
+        return DEFAULT_DOCUMENT_BUILDER_POOL.parse(is);
+    }
+
+    /**
+     * Parst das XML mit einem {@link DocumentBuilder} aus dem übergebenen {@link DocumentBuilderPool}, z.B. um
+     * Namespace- oder XInclude-Verarbeitung abzuschalten.
+     */
+    public static Document toDocument(InputSource is, DocumentBuilderPool pool) throws ParserConfigurationException, IOException, SAXException {
+        return pool.parse(is);
+    }
+
+    static DocumentBuilderPool defaultDocumentBuilderPool() {
+        return DEFAULT_DOCUMENT_BUILDER_POOL;
+    }
+
+    static XMLInputFactory defaultXMLInputFactory() {
+        return XML_INPUT_FACTORY;
+    }
+
+    /**
+     * Erzeugt in einem einzigen Durchlauf die XPath-Ausdrücke aller Elemente und Attribute unterhalb (inkl.) des
+     * übergebenen Knotens und übergibt sie in Dokument-Reihenfolge an den Consumer, z.B. <code>/root</code>,
+     * <code>/root/item[2]</code>, <code>/root/item[2]/@id</code>. Elemente und Attribute mit Namespace bekommen den
+     * Prefix aus {@link #createNamespaceContext(Document)} (z.B. <code>/default:root/default:item[1]</code>), so dass
+     * die Ausdrücke mit diesem {@link NamespaceContext} ausgewertet werden können.
+     *
+     * @param node     ein {@link Document} oder {@link Element}
+     * @param consumer erhält jeden Knoten mit seinem XPath-Ausdruck
+     * @see #toXPaths(Node, NamespaceContext, BiConsumer)
+     */
+    public static void toXPaths(Node node, BiConsumer<? super Node, String> consumer) {
+        if (node == null) return;
+        Document document = node.getNodeType() == Node.DOCUMENT_NODE ? (Document) node : node.getOwnerDocument();
+        toXPaths(node, createNamespaceContext(document), consumer);
+    }
+
+    /**
+     * Wie {@link #toXPaths(Node, BiConsumer)}, jedoch mit den Prefixen aus dem übergebenen {@link NamespaceContext}.
+     * Die Position unter den gleichnamigen Geschwistern (gleiche Namespace-URI und lokaler Name) wird pro
+     * Elternelement beim Durchlauf mitgezählt, statt für jeden Knoten die vorherigen Geschwister erneut zu zählen. Hat
+     * eine Namespace-URI keinen Prefix im Context, wird der Name per <code>local-name()</code> und
+     * <code>namespace-uri()</code> geprüft. Namespace-Deklarationen (<code>xmlns</code>) werden ausgelassen.
+     *
+     * @param node             ein {@link Document} oder {@link Element}
+     * @param namespaceContext liefert die Prefixe der Namespace-URIs
+     * @param consumer         erhält jeden Knoten mit seinem XPath-Ausdruck
+     */
+    public static void toXPaths(Node node, NamespaceContext namespaceContext, BiConsumer<? super Node, String> consumer) {
+        if (node == null) return;
+        Element start;
+        if (node.getNodeType() == Node.DOCUMENT_NODE) {
+            start = ((Document) node).getDocumentElement();
+        } else if (node.getNodeType() == Node.ELEMENT_NODE) {
+            start = (Element) node;
+        } else {
+            throw new IllegalStateException("Unexpected Node type" + node.getNodeType());
+        }
+        if (start == null) return;
+        StringBuilder path = new StringBuilder(128);
+        Node parent = start.getParentNode();
+        if (parent != null && parent.getNodeType() == Node.ELEMENT_NODE) {
+            // einmalig den Pfad bis zum Startelement ermitteln
+            Deque<Element> ancestors = new ArrayDeque<>();
+            for (Node ancestor = parent; ancestor != null && ancestor.getNodeType() == Node.ELEMENT_NODE; ancestor = ancestor.getParentNode()) {
+                ancestors.push((Element) ancestor);
+            }
+            for (Element ancestor : ancestors) {
+                appendSegment(path, ancestor, siblingIndex(ancestor), namespaceContext);
+            }
+        }
+        Deque<XPathFrame> stack = new ArrayDeque<>();
+        stack.push(enter(path, start, siblingIndex(start), namespaceContext, consumer));
+        while (!stack.isEmpty()) {
+            XPathFrame frame = stack.peek();
+            Node child = frame.nextChild;
+            while (child != null && child.getNodeType() != Node.ELEMENT_NODE) {
+                child = child.getNextSibling();
+            }
+            if (child == null) {
+                stack.pop();
+                continue;
+            }
+            frame.nextChild = child.getNextSibling();
+            int index = ++frame.siblingCounts.computeIfAbsent(expandedName(child), key -> new int[1])[0];
+            path.setLength(frame.pathLength);
+            stack.push(enter(path, (Element) child, index, namespaceContext, consumer));
+        }
+    }
+
+    private static XPathFrame enter(StringBuilder path, Element element, int index, NamespaceContext namespaceContext, BiConsumer<? super Node, String> consumer) {
+        appendSegment(path, element, index, namespaceContext);
+        int pathLength = path.length();
+        consumer.accept(element, path.toString());
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); i++) {
+            Node attribute = attributes.item(i);
+            String name = attribute.getNodeName();
+            if (name.equals(XMLConstants.XMLNS_ATTRIBUTE) || name.startsWith(XMLConstants.XMLNS_ATTRIBUTE + ":")) continue;
+            path.append("/@");
+            appendName(path, attribute, namespaceContext);
+            consumer.accept(attribute, path.toString());
+            path.setLength(pathLength);
+        }
+        return new XPathFrame(element.getFirstChild(), pathLength);
+    }
+
+    /**
+     * @param index Position unter den gleichnamigen Geschwistern, 0 für das Root-Element
+     */
+    private static void appendSegment(StringBuilder path, Element element, int index, NamespaceContext namespaceContext) {
+        path.append('/');
+        appendName(path, element, namespaceContext);
+        if (index > 0) path.append('[').append(index).append(']');
+    }
+
+    private static void appendName(StringBuilder path, Node node, NamespaceContext namespaceContext) {
+        String namespaceURI = node.getNamespaceURI();
+        String localName = node.getLocalName();
+        if (localName == null) {
+            // ohne Namespace-Unterstützung erzeugter Knoten
+            path.append(node.getNodeName());
+            return;
+        }
+        if (namespaceURI == null || namespaceURI.isEmpty()) {
+            path.append(localName);
+            return;
+        }
+        String prefix = namespaceContext != null ? namespaceContext.getPrefix(namespaceURI) : null;
+        if (prefix != null && !prefix.isEmpty()) {
+            path.append(prefix).append(':').append(localName);
+        } else {
+            path.append("*[local-name()='").append(localName).append("' and namespace-uri()='").append(namespaceURI).append("']");
+        }
+    }
+
+    /**
+     * @return den Namen für den Vergleich von Geschwistern, unabhängig vom Prefix im Dokument
+     */
+    private static String expandedName(Node node) {
+        if (node.getLocalName() == null) return node.getNodeName();
+        String namespaceURI = node.getNamespaceURI();
+        return namespaceURI == null || namespaceURI.isEmpty() ? node.getLocalName() : "{" + namespaceURI + "}" + node.getLocalName();
+    }
+
+    private static int siblingIndex(Element element) {
+        if (element.getParentNode() == null || element.getParentNode().getNodeType() != Node.ELEMENT_NODE) return 0;
+        String name = expandedName(element);
+        int index = 1;
+        for (Node sibling = element.getPreviousSibling(); sibling != null; sibling = sibling.getPreviousSibling()) {
+            if (sibling.getNodeType() == Node.ELEMENT_NODE && expandedName(sibling).equals(name)) index++;
+        }
+        return index;
+    }
+
+    /**
+     * Zustand eines Elements beim Durchlauf in {@link #toXPaths(Node, NamespaceContext, BiConsumer)}.
+     */
+    private static final class XPathFrame {
+
+        final int pathLength;
+        final Map<String, int[]> siblingCounts = new HashMap<>();
+        Node nextChild;
+
+        XPathFrame(Node firstChild, int pathLength) {
+            this.nextChild = firstChild;
+            this.pathLength = pathLength;
+        }
     }
 
     public static String toXPath(Node node) {
@@ -0,0 +1,303 @@
+package de.wazilla.utils.xml;
+
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Zerlegt große XML-Dateien, die aus einem Root-Element mit vielen gleichartigen Einträgen bestehen (z.B.
+ * <code>&lt;feed&gt;&lt;record/&gt;&lt;record/&gt;...&lt;/feed&gt;</code>), per StAX in Batches und verarbeitet diese
+ * parallel in einem {@link ForkJoinPool}.
+ * <p>
+ * Jeder Batch ist ein eigenständiges Dokument aus einer Kopie des Root-Elements (Name, Attribute und
+ * Namespace-Deklarationen) mit bis zu {@link #withBatchSize(int) batchSize} Einträgen. Es wird über einen
+ * {@link DocumentBuilderPool} geparst, so dass der {@link BatchProcessor} mit denselben Ausdrücken wie auf dem
+ * Gesamtdokument arbeiten kann, z.B. <code>XPaths.evaluate(batch, ctx, "/feed/record", NodeList.class)</code>. Die zum
+ * Eintrag gehörenden Namespace-Deklarationen der Vorfahren werden am Eintrag wiederholt; Inhalte zwischen den
+ * Einträgen entfallen.
+ * </p>
+ * <p>
+ * Es sind höchstens {@link #withMaxInFlight(int) maxInFlight} Batches gleichzeitig unterwegs (eingereiht oder in
+ * Verarbeitung); ist das Limit erreicht, wartet das Lesen der Datei. Der Speicherbedarf ist damit unabhängig von der
+ * Größe der Datei. Die Batch-Größe kann über die System-Property
+ * <code>de.wazilla.utils.xml.XMLSplitter.batchSize</code> (Default: 1000) gesetzt werden.
+ * </p>
+ * <p>
+ * {@link #process(InputStream, BatchProcessor)} darf nicht aus einem Task desselben Pools aufgerufen werden, da der
+ * wartende Thread sonst einen Worker blockiert. Die Einstellungen müssen vor der Verwendung erfolgen; danach ist
+ * eine Instanz thread-safe.
+ * </p>
+ *
+ * @author Ralf Lang
+ */
+public class XMLSplitter {
+
+    private static final int DEFAULT_BATCH_SIZE = Integer.getInteger(XMLSplitter.class.getName() + ".batchSize", 1000);
+
+    private final QName recordName;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int maxInFlight;
+    private ForkJoinPool pool = ForkJoinPool.commonPool();
+    private DocumentBuilderPool documentBuilderPool = XML.defaultDocumentBuilderPool();
+
+    /**
+     * @param recordName lokaler Name der Einträge (ohne Namespace)
+     */
+    public XMLSplitter(String recordName) {
+        this(new QName(recordName));
+    }
+
+    /**
+     * @param recordName Name der Einträge; passt auf die äußersten Elemente dieses Namens unterhalb des Root-Elements
+     */
+    public XMLSplitter(QName recordName) {
+        this.recordName = Objects.requireNonNull(recordName, "recordName == null");
+    }
+
+    public XMLSplitter withBatchSize(int batchSize) {
+        if (batchSize < 1) throw new IllegalArgumentException("batchSize < 1!");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * @param maxInFlight maximale Anzahl gleichzeitig eingereichter Batches (Default: doppelte Parallelität des Pools)
+     */
+    public XMLSplitter withMaxInFlight(int maxInFlight) {
+        if (maxInFlight < 1) throw new IllegalArgumentException("maxInFlight < 1!");
+        this.maxInFlight = maxInFlight;
+        return this;
+    }
+
+    public XMLSplitter withPool(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool == null");
+        return this;
+    }
+
+    public XMLSplitter withDocumentBuilderPool(DocumentBuilderPool documentBuilderPool) {
+        this.documentBuilderPool = Objects.requireNonNull(documentBuilderPool, "documentBuilderPool == null");
+        return this;
+    }
+
+    /**
+     * Liest den Stream, übergibt die Batches parallel an den Processor und kehrt erst zurück, wenn alle Batches
+     * verarbeitet sind. Nach dem ersten Fehler werden keine weiteren Batches eingereicht. Der Stream wird nicht
+     * geschlossen.
+     *
+     * @return die Anzahl der gelesenen Einträge
+     * @throws ExecutionException wenn das Parsen oder Verarbeiten eines Batches fehlgeschlagen ist; die Ursache ist
+     *                            der erste aufgetretene Fehler
+     */
+    public long process(InputStream in, BatchProcessor processor) throws XMLStreamException, InterruptedException, ExecutionException {
+        Objects.requireNonNull(processor, "processor == null");
+        int permits = maxInFlight > 0 ? maxInFlight : pool.getParallelism() * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        XMLStreamReader reader = XML.defaultXMLInputFactory().createXMLStreamReader(in);
+        long records = 0;
+        try {
+            // Namespace-Deklarationen aller offenen Elemente außerhalb der Einträge als Paare (Prefix, URI)
+            List<String> bindings = new ArrayList<>();
+            Deque<Integer> bindingMarks = new ArrayDeque<>();
+            String rootStart = null;
+            String rootEnd = null;
+            StringBuilder batch = null;
+            int batchRecords = 0;
+            int batchCapacity = 8192;
+            int recordDepth = 0;
+            while (reader.hasNext() && failure.get() == null) {
+                int event = reader.next();
+                if (recordDepth > 0) {
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        recordDepth++;
+                        writeStartElement(batch, reader, null);
+                    } else if (event == XMLStreamConstants.END_ELEMENT) {
+                        writeEndElement(batch, reader);
+                        if (--recordDepth == 0 && ++batchRecords == batchSize) {
+                            batchCapacity = Math.max(batchCapacity, batch.length() + rootEnd.length());
+                            submit(batch.append(rootEnd).toString(), processor, inFlight, failure);
+                            batch = null;
+                            batchRecords = 0;
+                        }
+                    } else {
+                        writeContent(batch, reader, event);
+                    }
+                } else if (event == XMLStreamConstants.START_ELEMENT) {
+                    if (rootStart != null && recordName.equals(reader.getName())) {
+                        if (batch == null) batch = new StringBuilder(batchCapacity).append(rootStart);
+                        Map<String, String> inScope = new LinkedHashMap<>();
+                        for (int i = 0; i < bindings.size(); i += 2) {
+                            inScope.put(bindings.get(i), bindings.get(i + 1));
+                        }
+                        writeStartElement(batch, reader, inScope);
+                        recordDepth = 1;
+                        records++;
+                    } else {
+                        bindingMarks.push(bindings.size());
+                        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                            bindings.add(nullToEmpty(reader.getNamespacePrefix(i)));
+                            bindings.add(nullToEmpty(reader.getNamespaceURI(i)));
+                        }
+                        if (rootStart == null) {
+                            StringBuilder sb = new StringBuilder();
+                            writeStartElement(sb, reader, null);
+                            rootStart = sb.toString();
+                            sb.setLength(0);
+                            writeEndElement(sb, reader);
+                            rootEnd = sb.toString();
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    bindings.subList(bindingMarks.pop(), bindings.size()).clear();
+                }
+            }
+            if (batch != null && failure.get() == null) {
+                submit(batch.append(rootEnd).toString(), processor, inFlight, failure);
+            }
+        } finally {
+            // auf alle eingereichten Batches warten
+            inFlight.acquireUninterruptibly(permits);
+            reader.close();
+        }
+        Throwable ex = failure.get();
+        if (ex != null) throw new ExecutionException(ex);
+        return records;
+    }
+
+    private void submit(String batch, BatchProcessor processor, Semaphore inFlight, AtomicReference<Throwable> failure) throws InterruptedException {
+        DocumentBuilderPool builderPool = this.documentBuilderPool;
+        inFlight.acquire();
+        try {
+            pool.execute(() -> {
+                try {
+                    if (failure.get() != null) return;
+                    Document document = XML.toDocument(new InputSource(new StringReader(batch)), builderPool);
+                    processor.process(document);
+                } catch (Throwable ex) {
+                    failure.compareAndSet(null, ex);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * @param inScope zusätzlich zu deklarierende Namespaces (Prefix auf URI) oder <code>null</code>
+     */
+    private static void writeStartElement(StringBuilder sb, XMLStreamReader reader, Map<String, String> inScope) {
+        sb.append('<');
+        appendName(sb, reader.getPrefix(), reader.getLocalName());
+        if (inScope != null) {
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                inScope.put(nullToEmpty(reader.getNamespacePrefix(i)), nullToEmpty(reader.getNamespaceURI(i)));
+            }
+            for (Map.Entry<String, String> binding : inScope.entrySet()) {
+                appendNamespace(sb, binding.getKey(), binding.getValue());
+            }
+        } else {
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                appendNamespace(sb, nullToEmpty(reader.getNamespacePrefix(i)), nullToEmpty(reader.getNamespaceURI(i)));
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            sb.append(' ');
+            appendName(sb, reader.getAttributePrefix(i), reader.getAttributeLocalName(i));
+            sb.append("=\"");
+            escape(sb, reader.getAttributeValue(i), true);
+            sb.append('"');
+        }
+        sb.append('>');
+    }
+
+    private static void writeEndElement(StringBuilder sb, XMLStreamReader reader) {
+        sb.append("</");
+        appendName(sb, reader.getPrefix(), reader.getLocalName());
+        sb.append('>');
+    }
+
+    private static void writeContent(StringBuilder sb, XMLStreamReader reader, int event) {
+        switch (event) {
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                escape(sb, reader.getText(), false);
+                break;
+            case XMLStreamConstants.COMMENT:
+                sb.append("<!--").append(reader.getText()).append("-->");
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                sb.append("<?").append(reader.getPITarget());
+                if (reader.getPIData() != null && !reader.getPIData().isEmpty()) sb.append(' ').append(reader.getPIData());
+                sb.append("?>");
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void appendName(StringBuilder sb, String prefix, String localName) {
+        if (prefix != null && !prefix.isEmpty()) sb.append(prefix).append(':');
+        sb.append(localName);
+    }
+
+    private static void appendNamespace(StringBuilder sb, String prefix, String uri) {
+        sb.append(" xmlns");
+        if (!prefix.isEmpty()) sb.append(':').append(prefix);
+        sb.append("=\"");
+        escape(sb, uri, true);
+        sb.append('"');
+    }
+
+    private static void escape(StringBuilder sb, String text, boolean attribute) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&': sb.append("&amp;"); break;
+                case '<': sb.append("&lt;"); break;
+                case '>': sb.append("&gt;"); break;
+                case '\r': sb.append("&#13;"); break;
+                case '"': sb.append(attribute ? "&quot;" : "\""); break;
+                case '\n': sb.append(attribute ? "&#10;" : "\n"); break;
+                case '\t': sb.append(attribute ? "&#9;" : "\t"); break;
+                default: sb.append(c);
+            }
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * Verarbeitet einen Batch; wird parallel aus den Threads des Pools aufgerufen.
+     */
+    @FunctionalInterface
+    public interface BatchProcessor {
+
+        void process(Document batch) throws Exception;
+
+    }
+
+}
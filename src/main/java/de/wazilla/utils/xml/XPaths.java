@@ -6,27 +6,32 @@ import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
-import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathException;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import de.wazilla.utils.ConcurrentCache;
 import de.wazilla.utils.Strings;
 
 public final class XPaths {
 
     private static final Map<Class<?>, QName> typeMapping = new HashMap<>();
     private static final Map<Class<?>, Supplier<Collection<Node>>> collectionSupplierMapping = new HashMap<>();
+    private static final ConcurrentCache<CacheKey, CompiledXPath> cache = ConcurrentCache.<CacheKey, CompiledXPath>builder()
+            .withMaximumSize(Integer.getInteger(XPaths.class.getName() + ".cacheSize", 256))
+            .build();
+    private static volatile boolean stacklessExceptions = Boolean.getBoolean(XPaths.class.getName() + ".stacklessExceptions");
     
     static {
         typeMapping.put(String.class, XPathConstants.STRING);
@@ -51,18 +56,78 @@ public final class XPaths {
         // Utility class
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Schaltet global um, ob Fehler beim Auswerten als {@link XPathExpressionException} ohne Stacktrace geworfen
+     * werden (Default über die System-Property <code>de.wazilla.utils.xml.XPaths.stacklessExceptions</code>).
+     */
+    public static void setStacklessExceptions(boolean stackless) {
+        stacklessExceptions = stackless;
+    }
+
     public static <T> T evaluate(Node node, NamespaceContext namespaceContext, String expression, Class<T> returnType) throws XPathException {
+        return evaluate(node, namespaceContext, expression, returnType, stacklessExceptions);
+    }
+
+    /**
+     * @param stackless <code>true</code>, wenn ein Fehler beim Auswerten als {@link XPathExpressionException} ohne
+     *                  Stacktrace geworfen werden soll (z.B. wenn der Aufrufer ihn für Fallback-Logik fängt). Die
+     *                  ursprüngliche Exception bleibt als Cause erreichbar.
+     */
+    public static <T> T evaluate(Node node, NamespaceContext namespaceContext, String expression, Class<T> returnType, boolean stackless) throws XPathException {
         if (node == null) return null;
         if (Strings.isNullOrBlank(expression)) throw new IllegalArgumentException("expression is null or blank: '" + expression + "'!");
         if (returnType == null) throw new IllegalArgumentException("returnType is null!");
-        XPathFactory factory = XPathFactory.newInstance(); // The XPathFactory class is not thread-safe
-        XPath xPath = factory.newXPath(); // An XPath object is not thread-safe and not reentrant
-        if (namespaceContext != null) xPath.setNamespaceContext(namespaceContext);
+        CompiledXPath compiledXPath;
+        try {
+            compiledXPath = compile(expression, namespaceContext);
+        } catch (XPathExpressionException ex) {
+            throw rewrap(expression, ex, stackless);
+        }
+        return evaluate(node, compiledXPath, returnType, stackless);
+    }
+
+    /**
+     * Übersetzt den Ausdruck bzw. liefert ihn aus einem begrenzten, thread-safe Cache (Key: Ausdruck und
+     * {@link NamespaceContext}, Größe über die System-Property <code>de.wazilla.utils.xml.XPaths.cacheSize</code>,
+     * Default 256). Der {@link NamespaceContext} wird per {@link Object#equals(Object)} verglichen; ein
+     * {@link MapNamespaceContext} (z.B. aus {@link XML#createNamespaceContext(org.w3c.dom.Document)}) vergleicht dabei
+     * seine Namespaces, andere Implementierungen sollten wiederverwendet werden.
+     *
+     * @param expression       der XPath-Ausdruck
+     * @param namespaceContext der {@link NamespaceContext} oder <code>null</code>
+     * @return den übersetzten Ausdruck
+     * @throws XPathExpressionException wenn der Ausdruck nicht übersetzt werden kann
+     */
+    public static CompiledXPath compile(String expression, NamespaceContext namespaceContext) throws XPathExpressionException {
+        if (Strings.isNullOrBlank(expression)) throw new IllegalArgumentException("expression is null or blank: '" + expression + "'!");
+        try {
+            // gleichzeitige Aufrufe für denselben Ausdruck übersetzen ihn nur einmal
+            return cache.get(new CacheKey(expression, namespaceContext), key -> {
+                try {
+                    return new CompiledXPath(expression, namespaceContext);
+                } catch (XPathExpressionException ex) {
+                    throw new CompileException(ex);
+                }
+            });
+        } catch (CompileException ex) {
+            throw (XPathExpressionException) ex.getCause();
+        }
+    }
+
+    public static <T> T evaluate(Node node, CompiledXPath compiledXPath, Class<T> returnType) throws XPathException {
+        return evaluate(node, compiledXPath, returnType, stacklessExceptions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T evaluate(Node node, CompiledXPath compiledXPath, Class<T> returnType, boolean stackless) throws XPathException {
+        if (node == null) return null;
+        if (returnType == null) throw new IllegalArgumentException("returnType is null!");
         QName returnTypeName = typeMapping.get(returnType);
         if (returnTypeName == null) throw new IllegalArgumentException("No mapping for type: " + returnType);
+        XPathExpression expression = null;
         try {
-            Object result = xPath.evaluate(expression, node, returnTypeName);
+            expression = compiledXPath.acquire();
+            Object result = expression.evaluate(node, returnTypeName);
             if (Collection.class.isAssignableFrom(returnType) && result instanceof NodeList) {
                 NodeList nodes = (NodeList) result;
                 Supplier<Collection<Node>> collectionSupplier = collectionSupplierMapping.get(returnType);
@@ -71,13 +136,19 @@ public final class XPaths {
                 return (T) result;
             }
         } catch (XPathExpressionException ex) {
-            String message = "Error evaluating " + expression;
-            XPathExpressionException exWithMessage = new XPathExpressionException(message);
-            exWithMessage.initCause(ex);
-            throw exWithMessage;
+            throw rewrap(compiledXPath.getExpression(), ex, stackless);
+        } finally {
+            if (expression != null) compiledXPath.release(expression);
         }
     }
 
+    private static XPathExpressionException rewrap(String expression, XPathExpressionException ex, boolean stackless) {
+        String message = "Error evaluating " + expression;
+        XPathExpressionException exWithMessage = stackless ? new StacklessXPathExpressionException(message) : new XPathExpressionException(message);
+        exWithMessage.initCause(ex);
+        return exWithMessage;
+    }
+
     private static <T extends Collection<Node>> T toCollection(NodeList nodes, Supplier<T> collectionSupplier) {
         T collection = collectionSupplier.get();
         for(int index = 0; index < nodes.getLength(); index++) {
@@ -87,4 +158,54 @@ public final class XPaths {
         return collection;
     }
 
+    private static final class CacheKey {
+
+        private final String expression;
+        private final NamespaceContext namespaceContext;
+
+        CacheKey(String expression, NamespaceContext namespaceContext) {
+            this.expression = expression;
+            this.namespaceContext = namespaceContext;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) obj;
+            return expression.equals(other.expression) && Objects.equals(namespaceContext, other.namespaceContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * expression.hashCode() + Objects.hashCode(namespaceContext);
+        }
+    }
+
+    /**
+     * Transportiert eine {@link XPathExpressionException} aus dem Loader des Caches.
+     */
+    private static final class CompileException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        CompileException(XPathExpressionException cause) {
+            super(cause);
+        }
+    }
+
+    private static final class StacklessXPathExpressionException extends XPathExpressionException {
+
+        private static final long serialVersionUID = 1L;
+
+        StacklessXPathExpressionException(String message) {
+            super(message);
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+    }
+
 }
@@ -0,0 +1,109 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.AsyncFiles;
+import de.wazilla.utils.ByteBufferPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncFilesTest {
+
+    private final AsyncFiles asyncFiles = new AsyncFiles(null, new ByteBufferPool(1024, 16, true));
+
+    @Test
+    void writeAndRead_BytesGiven_ShouldReturnSameBytes(@TempDir Path tempDir) throws Exception {
+        byte[] data = randomBytes(10_000);
+        Path file = tempDir.resolve("data.bin");
+        assertEquals(data.length, asyncFiles.write(file, data).get());
+        assertArrayEquals(data, asyncFiles.read(file).get());
+    }
+
+    @Test
+    void write_AppendGiven_ShouldAppendBytes(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("data.txt");
+        asyncFiles.write(file, "foo".getBytes()).get();
+        asyncFiles.write(file, "bar".getBytes(), StandardOpenOption.APPEND).get();
+        assertEquals("foobar", new String(Files.readAllBytes(file)));
+    }
+
+    @Test
+    void read_MissingFileGiven_ShouldCompleteExceptionally(@TempDir Path tempDir) {
+        CompletableFuture<byte[]> future = asyncFiles.read(tempDir.resolve("missing"));
+        ExecutionException ex = assertThrows(ExecutionException.class, future::get);
+        assertTrue(ex.getCause() instanceof NoSuchFileException);
+    }
+
+    @Test
+    void copy_FailingOpenGiven_ShouldCompleteExceptionallyAndReleaseBuffers(@TempDir Path tempDir) throws Exception {
+        AtomicInteger acquired = new AtomicInteger();
+        ByteBufferPool pool = new ByteBufferPool(1024, 16, true) {
+            @Override
+            public ByteBuffer acquire() {
+                acquired.incrementAndGet();
+                return super.acquire();
+            }
+
+            @Override
+            public void release(ByteBuffer buffer) {
+                acquired.decrementAndGet();
+                super.release(buffer);
+            }
+        };
+        AsyncFiles files = new AsyncFiles(null, pool);
+        Path source = tempDir.resolve("source.bin");
+        Files.write(source, randomBytes(100));
+        ExecutionException ex = assertThrows(ExecutionException.class,
+                files.copy(tempDir.resolve("missing"), tempDir.resolve("target.bin"))::get);
+        assertTrue(ex.getCause() instanceof NoSuchFileException);
+        ex = assertThrows(ExecutionException.class,
+                files.copy(source, tempDir.resolve("missing").resolve("target.bin"))::get);
+        assertTrue(ex.getCause() instanceof NoSuchFileException);
+        assertThrows(ExecutionException.class, files.write(tempDir, randomBytes(100))::get);
+        assertThrows(ExecutionException.class, files.read(tempDir)::get);
+        assertEquals(0, acquired.get());
+    }
+
+    @Test
+    void copy_ManyFilesConcurrentlyGiven_ShouldCopyAll(@TempDir Path tempDir) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            AsyncFiles files = new AsyncFiles(executor, new ByteBufferPool(512, 64, true));
+            byte[] data = randomBytes(5_000);
+            Path source = tempDir.resolve("source.bin");
+            Files.write(source, data);
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(files.copy(source, tempDir.resolve("target" + i + ".bin")));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+            for (int i = 0; i < 200; i++) {
+                assertEquals(data.length, futures.get(i).get());
+                assertArrayEquals(data, Files.readAllBytes(tempDir.resolve("target" + i + ".bin")));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        new Random(len).nextBytes(data);
+        return data;
+    }
+
+}
@@ -0,0 +1,145 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.ConcurrentCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentCacheTest {
+
+    @Test
+    void get_LoaderGiven_ShouldLoadOnceAndCountStats() {
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder().build();
+        AtomicInteger loads = new AtomicInteger();
+        assertEquals("FOO", cache.get("foo", key -> {
+            loads.incrementAndGet();
+            return key.toUpperCase();
+        }));
+        assertEquals("FOO", cache.get("foo", key -> "ignored"));
+        assertEquals("FOO", cache.get("foo"));
+        assertNull(cache.get("bar"));
+        assertEquals(1, loads.get());
+        assertEquals(2, cache.stats().getHitCount());
+        assertEquals(2, cache.stats().getMissCount());
+    }
+
+    @Test
+    void put_MaximumSizeExceeded_ShouldEvictUnreferencedEntries() {
+        ConcurrentCache<Integer, Integer> cache = ConcurrentCache.<Integer, Integer>builder().withMaximumSize(10).build();
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        cache.get(0);
+        for (int i = 10; i < 15; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(5, cache.stats().getEvictionCount());
+        assertEquals(0, cache.get(0));
+        assertNull(cache.get(1));
+    }
+
+    @Test
+    void get_ExpiredEntryGiven_ShouldReturnNull() {
+        AtomicLong time = new AtomicLong();
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                .withExpireAfterWrite(Duration.ofSeconds(10))
+                .withTicker(time::get)
+                .build();
+        cache.put("foo", "bar");
+        time.set(TimeUnit.SECONDS.toNanos(9));
+        assertEquals("bar", cache.get("foo"));
+        time.set(TimeUnit.SECONDS.toNanos(10));
+        assertNull(cache.get("foo"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().getExpirationCount());
+    }
+
+    @Test
+    void put_MaximumWeightGiven_ShouldStayWithinWeight() {
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder()
+                .withMaximumWeight(100, (key, value) -> value.length())
+                .build();
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "0123456789");
+        }
+        assertTrue(cache.weight() <= 100);
+    }
+
+    @Test
+    void put_ConcurrentWritersGiven_ShouldRespectMaximumSize() throws Exception {
+        ConcurrentCache<Integer, Integer> cache = ConcurrentCache.<Integer, Integer>builder().withMaximumSize(1_000).build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 50_000; i++) {
+                        int key = (i * 4 + offset) % 5_000;
+                        cache.get(key, k -> k);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(cache.size() <= 1_000, "size=" + cache.size());
+        assertEquals(cache.size(), cache.weight());
+    }
+
+    @Test
+    void get_LoaderUsingCacheGiven_ShouldLoadOtherKeysAndRejectRecursion() {
+        ConcurrentCache<String, String> cache = ConcurrentCache.<String, String>builder().build();
+        assertEquals("a+b", cache.get("a", key -> key + "+" + cache.get("b", other -> other)));
+        assertEquals("b", cache.get("b"));
+        assertThrows(IllegalStateException.class, () -> cache.get("c", key -> cache.get(key, other -> "x")));
+        assertNull(cache.get("c"));
+        assertEquals("c", cache.get("c", key -> key));
+    }
+
+    @Test
+    void get_SlowLoaderGiven_ShouldNotBlockOtherKeys() throws Exception {
+        ConcurrentCache<Integer, Integer> cache = ConcurrentCache.<Integer, Integer>builder().build();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> slow = executor.submit(() -> cache.get(1, key -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }));
+            Future<Integer> waiting = executor.submit(() -> cache.get(1, key -> -1));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // jeder andere Key wird trotz des laufenden Loaders sofort geladen
+            for (int i = 2; i < 100; i++) {
+                assertEquals(i, cache.get(i, key -> key));
+            }
+            release.countDown();
+            assertEquals(1, slow.get(10, TimeUnit.SECONDS));
+            assertEquals(1, waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
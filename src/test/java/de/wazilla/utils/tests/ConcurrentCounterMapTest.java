@@ -0,0 +1,131 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.ConcurrentCounterMap;
+import de.wazilla.utils.Maps;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentCounterMapTest {
+
+    @Test
+    void add_ManyThreadsGiven_ShouldCountExactly() throws InterruptedException {
+        ConcurrentCounterMap<String> counters = Maps.newCounterMap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    counters.increment("hot");
+                    counters.add("key" + (i % 10), 2);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(40_000, counters.sum("hot"));
+        assertEquals(8_000, counters.sum("key3"));
+        assertEquals(120_000, counters.sum());
+        assertEquals(0, counters.sum("missing"));
+        assertEquals(11, counters.size());
+    }
+
+    @Test
+    void snapshotAndReset_ShouldResetAndRemoveIdleKeys() {
+        ConcurrentCounterMap<String> counters = Maps.newCounterMap();
+        counters.add("a", 3);
+        counters.increment("b");
+        Map<String, Long> first = counters.snapshotAndReset();
+        assertEquals(3L, first.get("a"));
+        assertEquals(1L, first.get("b"));
+        counters.increment("a");
+        Map<String, Long> second = counters.snapshotAndReset();
+        assertEquals(1, second.size());
+        assertEquals(1L, second.get("a"));
+        assertTrue(counters.snapshotAndReset().isEmpty());
+        assertEquals(0, counters.size());
+    }
+
+    @Test
+    void topK_SkewedDistributionGiven_ShouldFindHeavyHitters() {
+        ConcurrentCounterMap<Integer> counters = Maps.newCounterMap(10);
+        for (int i = 0; i < 1_000; i++) {
+            counters.increment(1);
+            if (i % 2 == 0) counters.increment(2);
+            if (i % 4 == 0) counters.increment(3);
+            counters.increment(100 + i);
+        }
+        List<Map.Entry<Integer, Long>> top = counters.topK();
+        assertEquals(10, top.size());
+        assertEquals(1, top.get(0).getKey());
+        assertEquals(2, top.get(1).getKey());
+        assertTrue(top.get(0).getValue() >= 1_000);
+        assertThrows(IllegalStateException.class, () -> Maps.newCounterMap().topK());
+    }
+
+    @Test
+    void topK_HeavyKeyBeforeLighterKeysGiven_ShouldEvictSmallestCounter() {
+        ConcurrentCounterMap<String> counters = Maps.newCounterMap(2);
+        counters.add("heavy", 1_000);
+        counters.add("light", 1);
+        counters.add("x", 1);
+        List<Map.Entry<String, Long>> top = counters.topK();
+        assertEquals(2, top.size());
+        assertEquals("heavy", top.get(0).getKey());
+        assertEquals(1_000L, top.get(0).getValue());
+        assertEquals("x", top.get(1).getKey());
+        assertEquals(2L, top.get(1).getValue());
+    }
+
+    @Test
+    void snapshotAndReset_ConcurrentAddsGiven_ShouldNotLoseCounts() throws InterruptedException {
+        ConcurrentCounterMap<String> counters = Maps.newCounterMap();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            executor.execute(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    counters.increment("key" + (i / 500 % 40));
+                }
+            });
+        }
+        executor.shutdown();
+        long total = 0;
+        while (!executor.isTerminated()) {
+            total += counters.snapshotAndReset().values().stream().mapToLong(Long::longValue).sum();
+        }
+        for (int i = 0; i < 2; i++) {
+            total += counters.snapshotAndReset().values().stream().mapToLong(Long::longValue).sum();
+        }
+        assertEquals(200_000, total);
+    }
+
+    @Test
+    void topK_ManyThreadsGiven_ShouldMergeStripes() throws InterruptedException {
+        ConcurrentCounterMap<Integer> counters = Maps.newCounterMap(5);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            int offset = t * 10_000;
+            executor.execute(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    counters.increment(1);
+                    if (i % 2 == 0) counters.increment(2);
+                    counters.increment(100 + offset + i);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        List<Map.Entry<Integer, Long>> top = counters.topK();
+        assertEquals(5, top.size());
+        assertEquals(1, top.get(0).getKey());
+        assertEquals(2, top.get(1).getKey());
+        assertTrue(top.get(0).getValue() >= 8_000);
+        assertTrue(top.get(1).getValue() >= 4_000);
+    }
+
+}
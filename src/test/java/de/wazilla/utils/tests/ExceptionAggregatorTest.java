@@ -0,0 +1,59 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.ExceptionAggregator;
+import de.wazilla.utils.Throwables;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExceptionAggregatorTest {
+
+    @Test
+    void fingerprint_SameOriginDifferentMessageGiven_ShouldBeEqual() {
+        Exception[] exceptions = new Exception[2];
+        for (int i = 0; i < 2; i++) {
+            exceptions[i] = new IllegalStateException("message " + i, new NumberFormatException());
+        }
+        assertEquals(Throwables.fingerprint(exceptions[0]), Throwables.fingerprint(exceptions[1]));
+        assertNotEquals(Throwables.fingerprint(exceptions[0]), Throwables.fingerprint(new IllegalStateException()));
+        assertEquals(0, Throwables.fingerprint(null));
+    }
+
+    @Test
+    void fingerprint_CircularCauseGiven_ShouldTerminate() {
+        Exception ex1 = new Exception();
+        Exception ex2 = new Exception(ex1);
+        ex1.initCause(ex2);
+        assertNotEquals(0, Throwables.fingerprint(ex1));
+    }
+
+    @Test
+    void record_SameExceptionGiven_ShouldRenderOncePerWindow() {
+        AtomicLong time = new AtomicLong();
+        ExceptionAggregator aggregator = new ExceptionAggregator()
+                .withWindow(Duration.ofSeconds(10))
+                .withTicker(time::get);
+        String[] traces = new String[101];
+        for (int i = 0; i < traces.length; i++) {
+            if (i == 100) time.addAndGet(Duration.ofSeconds(11).toNanos());
+            traces[i] = record(aggregator, i);
+        }
+        assertTrue(traces[0].startsWith("java.lang.IllegalArgumentException: 0"));
+        for (int i = 1; i < 100; i++) {
+            assertNull(traces[i]);
+        }
+        assertTrue(traces[100].startsWith("(99 occurrences suppressed since last report)"));
+        assertEquals(1, aggregator.getCounts().size());
+    }
+
+    private static String record(ExceptionAggregator aggregator, int i) {
+        Exception ex = new IllegalArgumentException(String.valueOf(i));
+        String trace = aggregator.record(ex);
+        assertEquals(i + 1, aggregator.getCount(ex));
+        return trace;
+    }
+
+}
@@ -0,0 +1,62 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.ExternalSorter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExternalSorterTest {
+
+    @Test
+    void sort_ManyRunsGiven_ShouldSortAndCleanUpTempFiles(@TempDir Path tempDir) throws IOException {
+        List<String> lines = new ArrayList<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            lines.add("line-" + random.nextInt(1_000_000));
+        }
+        Path input = tempDir.resolve("input.txt");
+        Path output = tempDir.resolve("output.txt");
+        Path runs = Files.createDirectory(tempDir.resolve("runs"));
+        Files.write(input, lines, StandardCharsets.UTF_8);
+        long count = new ExternalSorter()
+                .withMaxRunSize(16 * 1024)
+                .withMaxFanIn(4)
+                .withTempDirectory(runs)
+                .sort(input, output);
+        Collections.sort(lines);
+        assertEquals(lines.size(), count);
+        assertEquals(lines, Files.readAllLines(output, StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(runs)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void sort_DistinctWithComparatorGiven_ShouldRemoveDuplicates(@TempDir Path tempDir) throws IOException {
+        Path input = tempDir.resolve("input.txt");
+        Path output = tempDir.resolve("output.txt");
+        Files.write(input, "b\nA\na\nc\nB\n".getBytes(StandardCharsets.UTF_8));
+        long count = new ExternalSorter()
+                .withComparator(String.CASE_INSENSITIVE_ORDER)
+                .withDistinct(true)
+                .withMaxRunSize(1)
+                .sort(input, output);
+        assertEquals(3, count);
+        List<String> sorted = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertEquals(Stream.of("a", "b", "c").collect(Collectors.toList()),
+                sorted.stream().map(String::toLowerCase).collect(Collectors.toList()));
+    }
+
+}
@@ -0,0 +1,92 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.MappedStringMap;
+import de.wazilla.utils.text.Lookup;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedStringMapTest {
+
+    @Test
+    void open_WrittenMapGiven_ShouldFindAllEntries(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("codes.map");
+        Map<String, String> expected = new LinkedHashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            expected.put("key" + i, "Wert äöü " + i);
+        }
+        MappedStringMap.write(file, expected);
+        try (MappedStringMap map = MappedStringMap.open(file)) {
+            assertEquals(expected.size(), map.size());
+            expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+            assertNull(map.get("missing"));
+            assertNull(map.get(null));
+            Map<String, String> actual = new LinkedHashMap<>();
+            map.forEach(actual::put);
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    void get_DuplicateKeysGiven_ShouldReturnFirstValue(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("dup.map");
+        try (MappedStringMap.Writer writer = MappedStringMap.writer(file)) {
+            writer.put("a", "1").put("", "empty").put("a", "2");
+        }
+        try (MappedStringMap map = MappedStringMap.open(file)) {
+            assertEquals("1", map.get("a"));
+            assertEquals("empty", map.get(""));
+            Lookup lookup = map::get;
+            assertEquals("empty", lookup.lookup(""));
+        }
+    }
+
+    @Test
+    void write_FailingPutGiven_ShouldKeepExistingFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("codes.map");
+        MappedStringMap.write(file, Collections.singletonMap("a", "1"));
+        Map<String, String> invalid = new LinkedHashMap<>();
+        invalid.put("b", "2");
+        invalid.put("c", null);
+        assertThrows(NullPointerException.class, () -> MappedStringMap.write(file, invalid));
+        try (MappedStringMap map = MappedStringMap.open(file)) {
+            assertEquals(1, map.size());
+            assertEquals("1", map.get("a"));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(Collections.singletonList(file), files.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void write_OpenMapGiven_ShouldReplaceFileWithoutChangingOpenMap(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("codes.map");
+        MappedStringMap.write(file, Collections.singletonMap("a", "1"));
+        try (MappedStringMap old = MappedStringMap.open(file)) {
+            MappedStringMap.write(file, Collections.singletonMap("b", "2"));
+            assertEquals("1", old.get("a"));
+            try (MappedStringMap map = MappedStringMap.open(file)) {
+                assertNull(map.get("a"));
+                assertEquals("2", map.get("b"));
+            }
+        }
+    }
+
+    @Test
+    void open_InvalidFileGiven_ShouldThrowIOException(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("invalid.map");
+        Files.write(file, new byte[100]);
+        assertThrows(IOException.class, () -> MappedStringMap.open(file));
+    }
+
+}
@@ -0,0 +1,142 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.Maps;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapsTest {
+
+    @Test
+    void createMap_KeysAndValuesGiven_ShouldReturnLinkedHashMap() {
+        Map<String, Integer> map = Maps.createMap(new String[]{"b", "a"}, new Integer[]{1, 2});
+        assertTrue(map instanceof LinkedHashMap);
+        assertEquals(Arrays.asList("b", "a"), new ArrayList<>(map.keySet()));
+        assertEquals(2, map.get("a"));
+    }
+
+    @Test
+    void createMap_DifferentLengthsGiven_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> Maps.createMap(new String[]{"a"}, new Integer[0]));
+    }
+
+    @Test
+    void createMap_ClassWithoutCapacityConstructorGiven_ShouldUseDefaultConstructor() {
+        Map<String, Integer> map = Maps.createMap(new String[]{"b", "a"}, new Integer[]{1, 2}, TreeMap.class);
+        assertTrue(map instanceof TreeMap);
+        assertEquals("a", ((TreeMap<String, Integer>) map).firstKey());
+    }
+
+    @Test
+    void createMapParallel_DuplicateKeysGiven_ShouldKeepOrderAndLastValue() {
+        int size = 100_000;
+        Integer[] keys = new Integer[size];
+        Integer[] values = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = size - 1 - (i % (size / 2));
+            values[i] = i;
+        }
+        Map<Integer, Integer> parallel = Maps.createMapParallel(keys, values, LinkedHashMap.class);
+        Map<Integer, Integer> sequential = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            sequential.put(keys[i], values[i]);
+        }
+        assertEquals(sequential, parallel);
+        assertEquals(new ArrayList<>(sequential.keySet()), new ArrayList<>(parallel.keySet()));
+    }
+
+    @Test
+    void builder_ExpectedSizeGiven_ShouldBuildMap() {
+        Map<String, String> map = Maps.<String, String>builder(HashMap.class, 2).put("foo", "bar").build();
+        assertEquals("bar", map.get("foo"));
+    }
+
+    @Test
+    void buildImmutable_SmallAndLargeMapsGiven_ShouldEqualSourceAndKeepOrder() {
+        for (int size : new int[]{0, 3, 8, 9, 10_000}) {
+            Maps.MapBuilder<String, Integer> builder = Maps.builder(LinkedHashMap.class);
+            for (int i = size - 1; i >= 0; i--) {
+                builder.put("key" + i, i);
+            }
+            Map<String, Integer> source = builder.build();
+            Map<String, Integer> immutable = builder.buildImmutable();
+            assertEquals(source, immutable);
+            assertEquals(source.hashCode(), immutable.hashCode());
+            assertEquals(new ArrayList<>(source.keySet()), new ArrayList<>(immutable.keySet()));
+            assertNull(immutable.get("missing"));
+            assertFalse(immutable.containsKey("missing"));
+        }
+    }
+
+    @Test
+    void immutableCopyOf_NullKeyAndValueGiven_ShouldSupportThem() {
+        Map<String, String> source = new HashMap<>();
+        source.put(null, "nullKey");
+        source.put("nullValue", null);
+        Map<String, String> immutable = Maps.immutableCopyOf(source);
+        assertEquals("nullKey", immutable.get(null));
+        assertTrue(immutable.containsKey("nullValue"));
+        assertThrows(UnsupportedOperationException.class, () -> immutable.put("foo", "bar"));
+        assertThrows(UnsupportedOperationException.class, () -> immutable.remove(null));
+    }
+
+    @Test
+    void diff_LargeMapsGiven_ShouldReportAllDifferences() {
+        Map<String, String> left = new HashMap<>();
+        Map<String, String> right = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            left.put("key" + i, "v" + i);
+            if (i % 10 != 0) right.put("key" + i, i % 7 == 0 ? "changed" : "v" + i);
+        }
+        right.put("new", null);
+        Map<String, String> added = new ConcurrentHashMap<>();
+        Map<String, String> removed = new ConcurrentHashMap<>();
+        Map<String, String> changed = new ConcurrentHashMap<>();
+        Maps.diff(left, right, new Maps.DiffListener<String, String>() {
+            @Override
+            public void added(String key, String value) {
+                added.put(key, String.valueOf(value));
+            }
+
+            @Override
+            public void removed(String key, String value) {
+                removed.put(key, value);
+            }
+
+            @Override
+            public void changed(String key, String oldValue, String newValue) {
+                changed.put(key, oldValue + "->" + newValue);
+            }
+        });
+        assertEquals(1, added.size());
+        assertEquals("null", added.get("new"));
+        assertEquals(10_000, removed.size());
+        assertEquals("v0", removed.get("key0"));
+        assertEquals("v7->changed", changed.get("key7"));
+        long expectedChanged = IntStream.range(0, 100_000).filter(i -> i % 10 != 0 && i % 7 == 0).count();
+        assertEquals(expectedChanged, changed.size());
+    }
+
+    @Test
+    void merge_ConflictingValuesGiven_ShouldApplyResolver() {
+        Map<String, Integer> left = new HashMap<>();
+        left.put("a", 1);
+        left.put("b", 2);
+        Map<String, Integer> right = new HashMap<>();
+        right.put("b", 3);
+        right.put("c", 4);
+        Map<String, Integer> merged = new TreeMap<>();
+        Maps.merge(left, right, Integer::sum, merged::put);
+        assertEquals("{a=1, b=5, c=4}", merged.toString());
+    }
+
+}
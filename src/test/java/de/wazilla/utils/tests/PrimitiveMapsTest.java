@@ -0,0 +1,98 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.IntIntMap;
+import de.wazilla.utils.LongLongMap;
+import de.wazilla.utils.LongObjectMap;
+import de.wazilla.utils.Maps;
+import de.wazilla.utils.ObjectIntMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrimitiveMapsTest {
+
+    @Test
+    void intIntMap_RandomOperationsGiven_ShouldBehaveLikeHashMap() {
+        IntIntMap map = Maps.newIntIntMap(0);
+        Map<Integer, Integer> reference = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(5_000) - 100;
+            int value = random.nextInt();
+            if (random.nextInt(3) == 0) {
+                Integer expected = reference.remove(key);
+                assertEquals(expected == null ? 0 : expected, map.remove(key));
+            } else {
+                Integer expected = reference.put(key, value);
+                assertEquals(expected == null ? 0 : expected, map.put(key, value));
+            }
+        }
+        assertEquals(reference.size(), map.size());
+        reference.forEach((key, value) -> assertEquals((int) value, map.get(key)));
+        map.forEach((key, value) -> assertEquals(reference.get(key), value));
+        assertEquals(reference.size(), map.keys().length);
+    }
+
+    @Test
+    void intIntMap_AddToGiven_ShouldCount() {
+        IntIntMap map = new IntIntMap(4, -1);
+        assertEquals(-1, map.get(7));
+        assertEquals(4, map.addTo(7, 5));
+        assertEquals(6, map.addTo(7, 2));
+        assertEquals(1, map.addTo(0, 2));
+        assertTrue(map.containsKey(0));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void longLongMap_ManyKeysGiven_ShouldGrowAndFindAll() {
+        LongLongMap map = Maps.longLongBuilder(2).put(0L, 1L).put(Long.MAX_VALUE, 2L).build();
+        for (long key = 1; key <= 10_000; key++) {
+            map.put(key << 32, key);
+        }
+        assertEquals(10_002, map.size());
+        assertEquals(1L, map.get(0L));
+        assertEquals(2L, map.get(Long.MAX_VALUE));
+        assertEquals(5_000L, map.get(5_000L << 32));
+        assertEquals(5_000L, map.remove(5_000L << 32));
+        assertFalse(map.containsKey(5_000L << 32));
+        AtomicLong sum = new AtomicLong();
+        map.forEach((key, value) -> sum.addAndGet(value));
+        assertEquals(10_000L * 10_001 / 2 - 5_000 + 3, sum.get());
+    }
+
+    @Test
+    void longObjectMap_PutGetRemoveGiven_ShouldWork() {
+        LongObjectMap<String> map = Maps.<String>longObjectBuilder(1).put(42L, "a").put(0L, "zero").build();
+        assertEquals("a", map.get(42L));
+        assertEquals("zero", map.get(0L));
+        assertNull(map.get(43L));
+        assertEquals("b", map.computeIfAbsent(43L, key -> "b"));
+        assertEquals("a", map.put(42L, "c"));
+        assertEquals(3, map.size());
+        assertEquals("zero", map.remove(0L));
+        assertEquals(2, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(1L, null));
+    }
+
+    @Test
+    void objectIntMap_PutGetRemoveGiven_ShouldWork() {
+        ObjectIntMap<String> map = Maps.<String>objectIntBuilder(1).put("foo", 1).build();
+        for (int i = 0; i < 1_000; i++) {
+            map.addTo("key" + (i % 10), 1);
+        }
+        assertEquals(1, map.get("foo"));
+        assertEquals(100, map.get("key3"));
+        assertEquals(0, map.get("missing"));
+        assertEquals(100, map.remove("key3"));
+        assertFalse(map.containsKey("key3"));
+        assertEquals(10, map.size());
+        assertThrows(NullPointerException.class, () -> map.put(null, 1));
+    }
+
+}
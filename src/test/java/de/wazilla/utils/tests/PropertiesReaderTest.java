@@ -0,0 +1,79 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.PropertiesReader;
+import de.wazilla.utils.Props;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PropertiesReaderTest {
+
+    private static final String CONTENT = "# Kommentar\r\n"
+            + "! auch Kommentar \\\n"
+            + "\n"
+            + "   foo = bar  \n"
+            + "key\\ with\\:escapes:value\\twith\\u00e4\n"
+            + "multi = first, \\\n"
+            + "        second, \\\r\n"
+            + "        third\r"
+            + "empty\n"
+            + "colon:  : value\n"
+            + "backslashes = a\\\\\n"
+            + "foo=again";
+
+    @Test
+    void forEach_ContentGiven_ShouldMatchPropertiesAndReportLineNumbers() throws IOException {
+        List<String> entries = new ArrayList<>();
+        try (PropertiesReader reader = new PropertiesReader(new StringReader(CONTENT))) {
+            reader.forEach((key, value, lineNumber) -> entries.add(lineNumber + ":" + key + "=" + value));
+        }
+        assertEquals(Arrays.asList(
+                "4:foo=bar  ",
+                "5:key with:escapes=value\twithä",
+                "6:multi=first, second, third",
+                "9:empty=",
+                "10:colon=: value",
+                "11:backslashes=a\\",
+                "12:foo=again"), entries);
+    }
+
+    @Test
+    void loadMap_StreamGiven_ShouldEqualPropertiesInFileOrder() throws IOException {
+        byte[] bytes = CONTENT.getBytes(StandardCharsets.ISO_8859_1);
+        Properties properties = new Properties();
+        properties.load(new ByteArrayInputStream(bytes));
+        Map<String, String> map = Props.loadMap(new ByteArrayInputStream(bytes));
+        assertEquals(Props.toMap(properties), map);
+        assertEquals(Arrays.asList("foo", "key with:escapes", "multi", "empty", "colon", "backslashes"), new ArrayList<>(map.keySet()));
+        assertEquals("again", map.get("foo"));
+    }
+
+    @Test
+    void loadMap_FileGiven_ShouldReadMappedFile(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("test.properties");
+        Files.write(file, "a=1\nb=\\u00fc\u00fc".getBytes(StandardCharsets.ISO_8859_1));
+        Map<String, String> map = Props.loadMap(file);
+        assertEquals("1", map.get("a"));
+        assertEquals("\u00fc\u00fc", map.get("b"));
+    }
+
+    @Test
+    void next_MalformedUnicodeGiven_ShouldThrowException() {
+        PropertiesReader reader = new PropertiesReader(new StringReader("a=\\u12"));
+        assertThrows(IllegalArgumentException.class, reader::next);
+    }
+
+}
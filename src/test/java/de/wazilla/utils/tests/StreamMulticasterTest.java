@@ -0,0 +1,118 @@
+package de.wazilla.utils.tests;
+
+import de.wazilla.utils.StreamMulticaster;
+import de.wazilla.utils.Streams;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamMulticasterTest {
+
+    @Test
+    void copy_OutputStreamsAndConsumerGiven_ShouldDeliverAllBytesToEach() throws IOException {
+        byte[] data = new byte[1_000_000];
+        new Random(7).nextBytes(data);
+        CRC32 expectedCrc = new CRC32();
+        expectedCrc.update(data, 0, data.length);
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        AtomicReference<Long> crc = new AtomicReference<>();
+        long total = new StreamMulticaster()
+                .withChunkSize(1000)
+                .withMaxChunks(4)
+                .to(out1)
+                .to(out2)
+                .to(in -> {
+                    CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+                    Streams.read(checked);
+                    crc.set(checked.getChecksum().getValue());
+                })
+                .copy(new ByteArrayInputStream(data));
+        assertEquals(data.length, total);
+        assertArrayEquals(data, out1.toByteArray());
+        assertArrayEquals(data, out2.toByteArray());
+        assertEquals(expectedCrc.getValue(), crc.get());
+    }
+
+    @Test
+    void copy_FailingSinkGiven_ShouldFeedOtherSinksAndThrow() {
+        byte[] data = new byte[100_000];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OutputStream failing = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("intentionally");
+            }
+        };
+        StreamMulticaster multicaster = new StreamMulticaster().withChunkSize(100).withMaxChunks(2).to(failing).to(out);
+        IOException ex = assertThrows(IOException.class, () -> multicaster.copy(new ByteArrayInputStream(data)));
+        assertEquals("intentionally", ex.getMessage());
+        assertEquals(data.length, out.size());
+    }
+
+    @Test
+    void copy_RuntimeExceptionFromSourceGiven_ShouldFailSinks() throws InterruptedException {
+        InputStream failing = new ByteArrayInputStream(new byte[1_000]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                if (pos >= 500) throw new IllegalStateException("intentionally");
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+        AtomicReference<Throwable> sinkResult = new AtomicReference<>();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        StreamMulticaster multicaster = new StreamMulticaster().withChunkSize(100).withMaxChunks(2)
+                .withExecutorService(executor)
+                .to(in -> {
+                    try {
+                        while (in.read() >= 0) {
+                            // alles lesen
+                        }
+                        sinkResult.set(new AssertionError("sink completed normally"));
+                    } catch (IOException ex) {
+                        sinkResult.set(ex);
+                    }
+                });
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> multicaster.copy(failing));
+        assertEquals("intentionally", ex.getMessage());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(sinkResult.get() instanceof IOException, String.valueOf(sinkResult.get()));
+    }
+
+    @Test
+    void copy_ConsumerReadingOnlyPartGiven_ShouldNotBlock() throws IOException {
+        byte[] data = new byte[100_000];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long total = new StreamMulticaster().withChunkSize(100).withMaxChunks(2)
+                .to(in -> in.read(new byte[10]))
+                .to(out)
+                .copy(new ByteArrayInputStream(data));
+        assertEquals(data.length, total);
+        assertEquals(data.length, out.size());
+    }
+
+    @Test
+    void multicast_OutputStreamsGiven_ShouldCopyToAll() throws IOException {
+        byte[] data = "foobar".getBytes();
+        ByteArrayOutputStream out1 = new ByteArrayOutputStream();
+        ByteArrayOutputStream out2 = new ByteArrayOutputStream();
+        Streams.multicast(new ByteArrayInputStream(data), out1, out2);
+        assertArrayEquals(data, out1.toByteArray());
+        assertArrayEquals(data, out2.toByteArray());
+    }
+
+}
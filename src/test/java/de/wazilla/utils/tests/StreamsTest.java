@@ -2,8 +2,18 @@ package de.wazilla.utils.tests;
 
 import de.wazilla.utils.Streams;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -46,6 +56,30 @@ public class StreamsTest {
 		assertArrayEquals(data, read);
 	}
 	
+	@Test
+	void forEachLine_MixedLineEndingsGiven_ShouldReturnLines() throws IOException {
+		byte[] bytes = "eins\r\nzwei\rdrei\n\nvier äöü".getBytes(StandardCharsets.UTF_8);
+		List<String> lines = new ArrayList<>();
+		long count = Streams.forEachLine(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8, line -> lines.add(line.toString()));
+		assertEquals(5, count);
+		assertEquals(Arrays.asList("eins", "zwei", "drei", "", "vier äöü"), lines);
+	}
+
+	@Test
+	void forEachLine_NullGiven_ShouldReturnZero() throws IOException {
+		assertEquals(0, Streams.forEachLine(null, StandardCharsets.UTF_8, line -> fail()));
+	}
+
+	@Test
+	void lines_ParallelStreamGiven_ShouldReturnSameLinesAsSequential(@TempDir Path tempDir) throws IOException {
+		Path file = tempDir.resolve("lines.txt");
+		List<String> expected = IntStream.range(0, 50_000).mapToObj(i -> "Zeile " + i + " ü").collect(Collectors.toList());
+		Files.write(file, expected, StandardCharsets.UTF_8);
+		try (Stream<String> lines = Streams.lines(file, StandardCharsets.UTF_8)) {
+			assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+		}
+	}
+
 	private static class TestInputStream extends InputStream {
 
 		private int pos;
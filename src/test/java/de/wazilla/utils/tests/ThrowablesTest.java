@@ -1,5 +1,6 @@
 package de.wazilla.utils.tests;
 
+import de.wazilla.utils.StackTraceRenderer;
 import de.wazilla.utils.Throwables;
 import org.junit.jupiter.api.Test;
 
@@ -37,4 +38,50 @@ public class ThrowablesTest {
         Throwable rootCause = Throwables.getRootCause(ex3);
         assertTrue(ex1 == rootCause);
     }
+
+    @Test
+    public void toString_DeepTraceGiven_ShouldLimitFramesAndLength() {
+        Exception ex = recurse(200);
+        String trace = Throwables.toString(ex, 5, 100_000);
+        assertEquals(5, countOccurrences(trace, "\tat "));
+        assertTrue(trace.contains(" frames omitted"));
+        String truncated = Throwables.toString(ex, 1000, 300);
+        assertTrue(truncated.length() < 350);
+        assertTrue(truncated.trim().endsWith("... (truncated)"));
+    }
+
+    @Test
+    public void render_CauseWithCommonFramesGiven_ShouldFoldThem() {
+        Exception cause = new IllegalStateException("cause");
+        Exception ex = new RuntimeException("outer", cause);
+        String trace = new StackTraceRenderer().withMaxFrames(1000).render(ex);
+        assertTrue(trace.startsWith("java.lang.RuntimeException: outer"));
+        assertTrue(trace.contains("Caused by: java.lang.IllegalStateException: cause"));
+        assertTrue(trace.contains(" more"));
+    }
+
+    @Test
+    public void render_CircularCauseAndSuppressedGiven_ShouldTerminate() {
+        Exception ex1 = new Exception("one");
+        Exception ex2 = new Exception("two", ex1);
+        ex1.initCause(ex2);
+        ex2.addSuppressed(ex1);
+        String trace = new StackTraceRenderer().render(ex2);
+        assertTrue(trace.contains("[CIRCULAR REFERENCE: java.lang.Exception: two]"));
+        assertTrue(trace.contains("\tSuppressed: java.lang.Exception: one"));
+        assertNull(new StackTraceRenderer().render(null));
+    }
+
+    private static Exception recurse(int depth) {
+        return depth == 0 ? new Exception("deep") : recurse(depth - 1);
+    }
+
+    private static int countOccurrences(String text, String part) {
+        int count = 0;
+        for (int i = text.indexOf(part); i >= 0; i = text.indexOf(part, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
 }
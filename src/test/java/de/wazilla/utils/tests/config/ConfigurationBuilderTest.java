@@ -1,5 +1,6 @@
 package de.wazilla.utils.tests.config;
 
+import de.wazilla.utils.Throwables;
 import de.wazilla.utils.config.*;
 import org.junit.jupiter.api.Test;
 
@@ -37,6 +38,18 @@ public class ConfigurationBuilderTest {
         assertThrows(ConfigurationRuntimeException.class, testConfiguration::getValueWithFaultyCtorConverter);
     }
 
+    @Test
+    void testWithStacklessExceptions() {
+        PropertySource propertySource = new MapPropertySource(Collections.singletonMap("faulty", "ignored"));
+        TestConfiguration testConfiguration = new ConfigurationBuilder()
+                .withPropertySource(propertySource)
+                .withStacklessExceptions(true)
+                .build(TestConfiguration.class);
+        ConfigurationRuntimeException ex = assertThrows(ConfigurationRuntimeException.class, testConfiguration::getValueWithFaultyConverter);
+        assertEquals(0, ex.getStackTrace().length);
+        assertTrue(Throwables.getRootCause(ex) instanceof DateTimeException);
+    }
+
     interface TestConfiguration {
 
         String getStringValue();
@@ -0,0 +1,99 @@
+package de.wazilla.utils.tests.config;
+
+import de.wazilla.utils.Props;
+import de.wazilla.utils.config.MapPropertySource;
+import de.wazilla.utils.config.PropertySource;
+import de.wazilla.utils.config.SnapshotPropertySource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotPropertySourceTest {
+
+    @Test
+    void open_SnapshotOfPropertiesFileGiven_ShouldReturnValuesAndDetectChanges(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("app.properties");
+        Files.write(source, "user=test\nurl=http://localhost\n".getBytes(StandardCharsets.ISO_8859_1));
+        Path snapshot = dir.resolve("app.snapshot");
+        SnapshotPropertySource.write(snapshot, Props.loadMap(source), source);
+        try (SnapshotPropertySource propertySource = SnapshotPropertySource.open(snapshot)) {
+            assertEquals("test", propertySource.getPropertyValue("user"));
+            assertNull(propertySource.getPropertyValue("missing"));
+            assertEquals(new HashSet<>(Arrays.asList("user", "url")), propertySource.getKeys());
+            assertEquals(Collections.singletonList(source.toAbsolutePath()), propertySource.getSourceFiles());
+            assertTrue(propertySource.isUpToDate());
+            Files.write(source, "user=changed\n".getBytes(StandardCharsets.ISO_8859_1));
+            assertFalse(propertySource.isUpToDate());
+        }
+    }
+
+    @Test
+    void write_PropertySourcesGiven_ShouldUseFirstNonEmptyValue(@TempDir Path dir) throws IOException {
+        Map<String, String> first = new HashMap<>();
+        first.put("a", "1");
+        first.put("b", "");
+        Map<String, String> second = new HashMap<>();
+        second.put("a", "2");
+        second.put("b", "3");
+        List<PropertySource> propertySources = Arrays.asList(new MapPropertySource(first), new MapPropertySource(second));
+        Path snapshot = dir.resolve("merged.snapshot");
+        SnapshotPropertySource.write(snapshot, propertySources);
+        try (SnapshotPropertySource propertySource = SnapshotPropertySource.open(snapshot)) {
+            assertEquals("1", propertySource.getPropertyValue("a"));
+            assertEquals("3", propertySource.getPropertyValue("b"));
+            assertTrue(propertySource.isUpToDate());
+            assertTrue(propertySource.getSourceFiles().isEmpty());
+            assertEquals(new HashSet<>(Arrays.asList("a", "b")), propertySource.getKeys());
+        }
+    }
+
+    @Test
+    void getSourceFiles_SeveralSourcesGiven_ShouldKeepOrderAndCheckEach(@TempDir Path dir) throws IOException {
+        Path first = dir.resolve("b.properties");
+        Path second = dir.resolve("a.properties");
+        Files.write(first, "x=1\n".getBytes(StandardCharsets.ISO_8859_1));
+        Files.write(second, "y=2\n".getBytes(StandardCharsets.ISO_8859_1));
+        Path snapshot = dir.resolve("both.snapshot");
+        SnapshotPropertySource.write(snapshot, Collections.singletonMap("x", "1"), first, second);
+        try (SnapshotPropertySource propertySource = SnapshotPropertySource.open(snapshot)) {
+            assertEquals(Arrays.asList(first.toAbsolutePath(), second.toAbsolutePath()), propertySource.getSourceFiles());
+            assertEquals(Collections.singleton("x"), propertySource.getKeys());
+            assertTrue(propertySource.isUpToDate());
+            Files.delete(second);
+            assertFalse(propertySource.isUpToDate());
+        }
+    }
+
+    @Test
+    void write_ReservedKeyGiven_ShouldKeepExistingSnapshot(@TempDir Path dir) throws IOException {
+        Path source = dir.resolve("app.properties");
+        Files.write(source, "x=1\n".getBytes(StandardCharsets.ISO_8859_1));
+        Path snapshot = dir.resolve("app.snapshot");
+        SnapshotPropertySource.write(snapshot, Collections.singletonMap("x", "1"), source);
+        Map<String, String> invalid = new LinkedHashMap<>();
+        invalid.put("y", "2");
+        invalid.put("\0sources", "");
+        assertThrows(IllegalArgumentException.class, () -> SnapshotPropertySource.write(snapshot, invalid, source));
+        try (SnapshotPropertySource propertySource = SnapshotPropertySource.open(snapshot)) {
+            assertEquals(Collections.singleton("x"), propertySource.getKeys());
+            assertEquals(Collections.singletonList(source.toAbsolutePath()), propertySource.getSourceFiles());
+        }
+        Path missing = dir.resolve("missing.snapshot");
+        assertThrows(IllegalArgumentException.class, () -> SnapshotPropertySource.write(missing, invalid, source));
+        assertFalse(Files.exists(missing));
+    }
+
+}
@@ -0,0 +1,64 @@
+package de.wazilla.utils.tests.xml;
+
+import de.wazilla.utils.xml.DocumentBuilderPool;
+import de.wazilla.utils.xml.XML;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentBuilderPoolTest {
+
+	@Test
+	public void parse_ManyThreadsGiven_ShouldParseAllDocuments() throws Exception {
+		DocumentBuilderPool pool = new DocumentBuilderPool().withMaxPooled(2);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String xml = "<root xmlns='urn:test'><value>" + i + "</value></root>";
+				results.add(executor.submit(() -> pool.parse(new InputSource(new StringReader(xml))).getDocumentElement().getTextContent()));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(String.valueOf(i), results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void parse_DoctypeGiven_ShouldRejectAndStayUsable() throws Exception {
+		DocumentBuilderPool pool = new DocumentBuilderPool().withMaxPooled(1);
+		assertThrows(SAXException.class, () -> pool.parse(new InputSource(new StringReader("<!DOCTYPE x [<!ENTITY e SYSTEM 'file:///etc/passwd'>]><x>&e;</x>"))));
+		Document document = pool.parse(new InputSource(new StringReader("<x/>")));
+		assertEquals("x", document.getDocumentElement().getNodeName());
+	}
+
+	@Test
+	public void acquire_ReleasedBuilderGiven_ShouldReuseIt() throws Exception {
+		DocumentBuilderPool pool = new DocumentBuilderPool().withNamespaceAware(false).withXIncludeAware(false);
+		DocumentBuilder builder = pool.acquire();
+		assertFalse(builder.isNamespaceAware());
+		pool.release(builder);
+		assertSame(builder, pool.acquire());
+		assertThrows(IllegalStateException.class, () -> pool.withMaxPooled(5));
+	}
+
+	@Test
+	public void toDocument_NamespaceGiven_ShouldBeNamespaceAware() throws Exception {
+		Document document = XML.toDocument("<a:root xmlns:a='urn:a'/>");
+		assertEquals("urn:a", document.getDocumentElement().getNamespaceURI());
+	}
+
+}
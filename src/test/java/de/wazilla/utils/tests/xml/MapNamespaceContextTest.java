@@ -0,0 +1,49 @@
+package de.wazilla.utils.tests.xml;
+
+import de.wazilla.utils.xml.MapNamespaceContext;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.XMLConstants;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MapNamespaceContextTest {
+
+	@Test
+	public void getNamespaceURI_PrefixesGiven_ShouldResolveThem() {
+		Map<String, Set<String>> namespaces = new HashMap<>();
+		namespaces.put("urn:a", new LinkedHashSet<>(Arrays.asList("a", "alias")));
+		namespaces.put("urn:b", Collections.singleton("b"));
+		MapNamespaceContext context = new MapNamespaceContext(namespaces);
+		namespaces.clear();
+		assertEquals("urn:a", context.getNamespaceURI("alias"));
+		assertEquals("urn:b", context.getNamespaceURI("b"));
+		assertEquals(XMLConstants.NULL_NS_URI, context.getNamespaceURI("unknown"));
+		assertEquals(XMLConstants.XML_NS_URI, context.getNamespaceURI(XMLConstants.XML_NS_PREFIX));
+		assertNull(context.getNamespaceURI(null));
+		assertEquals("a", context.getPrefix("urn:a"));
+		assertNull(context.getPrefix("urn:unknown"));
+		Iterator<String> prefixes = context.getPrefixes("urn:a");
+		assertEquals("a", prefixes.next());
+		assertEquals("alias", prefixes.next());
+		assertFalse(prefixes.hasNext());
+		assertThrows(IllegalArgumentException.class, () -> context.getPrefixes(null));
+	}
+
+	@Test
+	public void shared_EqualNamespacesGiven_ShouldReturnSameInstance() {
+		MapNamespaceContext first = MapNamespaceContext.shared(Collections.singletonMap("urn:a", Collections.singleton("a")));
+		MapNamespaceContext second = MapNamespaceContext.shared(new HashMap<>(Collections.singletonMap("urn:a", Collections.singleton("a"))));
+		assertSame(first, second);
+		assertEquals(first, new MapNamespaceContext(Collections.singletonMap("urn:a", Collections.singleton("a"))));
+		assertSame(MapNamespaceContext.EMPTY, MapNamespaceContext.shared(Collections.emptyMap()));
+	}
+
+}
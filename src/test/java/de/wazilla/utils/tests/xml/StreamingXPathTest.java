@@ -0,0 +1,121 @@
+package de.wazilla.utils.tests.xml;
+
+import de.wazilla.utils.xml.MapNamespaceContext;
+import de.wazilla.utils.xml.StreamingXPath;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.InputSource;
+
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingXPathTest {
+
+	private static final String XML = "<?xml version='1.0'?>"
+			+ "<feed xmlns:p='urn:p'>"
+			+ "<order id='1' status='open'><item sku='a'>A<b>1</b></item><item sku='b'>B</item></order>"
+			+ "<order id='2' status='closed'><item sku='c'>C</item></order>"
+			+ "<group><order id='3' status='open'><item sku='d'>D</item></order></group>"
+			+ "<p:note>hello</p:note>"
+			+ "</feed>";
+
+	@Test
+	public void evaluate_ChildAndDescendantStepsGiven_ShouldEmitValues() throws Exception {
+		assertEquals(Arrays.asList("a", "b", "c"), values("/feed/order/item/@sku"));
+		assertEquals(Arrays.asList("a", "b", "c", "d"), values("//item/@sku"));
+		assertEquals(Arrays.asList("1", "3"), values("//order[@status='open']/@id"));
+		assertEquals(Arrays.asList("b"), values("/feed/order[1]/item[2]/@sku"));
+		assertEquals(Arrays.asList("2"), values("/feed/order[@status='closed'][1]/@id"));
+		assertEquals(Arrays.asList("A1"), values("/feed/order/item[@sku='a']"));
+		assertEquals(Arrays.asList("A"), values("/feed/order/item[@sku='a']/text()"));
+		assertEquals(Arrays.asList("1", "2", "3"), values("//*[@status]/@id"));
+		assertEquals(Collections.emptyList(), values("/order/@id"));
+	}
+
+	@Test
+	public void evaluate_PrefixGiven_ShouldResolveNamespace() throws Exception {
+		MapNamespaceContext namespaceContext = new MapNamespaceContext(Collections.singletonMap("urn:p", Collections.singleton("x")));
+		List<String> result = new ArrayList<>();
+		StreamingXPath.compile("/feed/x:note", namespaceContext).evaluate(stream(), result::add);
+		assertEquals(Collections.singletonList("hello"), result);
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/feed/y:note", namespaceContext));
+	}
+
+	@Test
+	public void evaluateElements_MatchesGiven_ShouldEmitDomFragments() throws Exception {
+		List<Element> elements = new ArrayList<>();
+		long count = StreamingXPath.compile("//order[@status='open']").evaluateElements(stream(), elements::add);
+		assertEquals(2, count);
+		assertEquals("3", elements.get(1).getAttribute("id"));
+		assertEquals(2, elements.get(0).getElementsByTagName("item").getLength());
+		assertEquals("A1B", elements.get(0).getTextContent());
+		assertNull(elements.get(0).getParentNode().getParentNode());
+		assertThrows(IllegalStateException.class, () -> StreamingXPath.compile("//order/@id").evaluateElements(stream(), elements::add));
+	}
+
+	@Test
+	public void compile_UnsupportedExpressionGiven_ShouldThrowException() {
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("order"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/order[last()]"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/order/@id/item"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a/node()"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a/b/.."));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a/."));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a/b | /r/b"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a/b|/r/b"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/child::a"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/a[@id = '1']"));
+		assertThrows(IllegalArgumentException.class, () -> StreamingXPath.compile("/r/1a"));
+	}
+
+	@Test
+	public void compile_QualifiedNamesGiven_ShouldAccept() {
+		MapNamespaceContext namespaceContext = new MapNamespaceContext(Collections.singletonMap("urn:p", Collections.singleton("x")));
+		assertNotNull(StreamingXPath.compile("//x:*/x:item-list/_a.b/*[@x:id='1']/@x:*", namespaceContext));
+	}
+
+	@Test
+	public void evaluate_TextOfEmptyElementGiven_ShouldNotEmit() throws Exception {
+		List<String> result = new ArrayList<>();
+		long count = StreamingXPath.compile("/r/b/text()").evaluate(new ByteArrayInputStream("<r><b/><b>x</b><b></b></r>".getBytes(StandardCharsets.UTF_8)), result::add);
+		assertEquals(Collections.singletonList("x"), result);
+		assertEquals(1, count);
+	}
+
+	@Test
+	public void evaluate_TextSplitByChildrenGiven_ShouldEmitEachTextNode() throws Exception {
+		String xml = "<r><b>y<c>n</c>z<!--k-->w<?p?>v</b><b>x</b></r>";
+		List<String> result = new ArrayList<>();
+		long count = StreamingXPath.compile("//b/text()").evaluate(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), result::add);
+		assertEquals(Arrays.asList("y", "z", "w", "v", "x"), result);
+		assertEquals(5, count);
+		NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate("//b/text()",
+				new InputSource(new StringReader(xml)), XPathConstants.NODESET);
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < nodes.getLength(); i++) {
+			expected.add(nodes.item(i).getNodeValue());
+		}
+		assertEquals(expected, result);
+	}
+
+	private static List<String> values(String expression) throws Exception {
+		List<String> result = new ArrayList<>();
+		StreamingXPath.compile(expression).evaluate(stream(), result::add);
+		return result;
+	}
+
+	private static ByteArrayInputStream stream() {
+		return new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,89 @@
+package de.wazilla.utils.tests.xml;
+
+import de.wazilla.utils.xml.MapNamespaceContext;
+import de.wazilla.utils.xml.XMLSplitter;
+import de.wazilla.utils.xml.XPaths;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XMLSplitterTest {
+
+	private static byte[] feed(int records) {
+		StringBuilder sb = new StringBuilder("<?xml version='1.0'?><feed version='2' xmlns:r='urn:r'><!-- header --><group xmlns:g='urn:g'>");
+		for (int i = 1; i <= records; i++) {
+			sb.append("<r:record g:id='").append(i).append("'><value>").append(i).append("</value><note><![CDATA[a<b & \"c\"]]></note></r:record>\n");
+		}
+		return sb.append("</group></feed>").toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Test
+	public void process_RecordsGiven_ShouldProcessAllBatchesWithBoundedInFlight() throws Exception {
+		Map<String, Set<String>> namespaces = new HashMap<>();
+		namespaces.put("urn:r", Collections.singleton("r"));
+		namespaces.put("urn:g", Collections.singleton("g"));
+		NamespaceContext context = new MapNamespaceContext(namespaces);
+		AtomicLong sum = new AtomicLong();
+		AtomicLong count = new AtomicLong();
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			XMLSplitter splitter = new XMLSplitter(new QName("urn:r", "record"))
+					.withBatchSize(100)
+					.withMaxInFlight(2)
+					.withPool(pool);
+			long records = splitter.process(new ByteArrayInputStream(feed(2550)), batch -> {
+				maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+				try {
+					assertEquals("2", XPaths.evaluate(batch, context, "/feed/@version", String.class));
+					assertEquals("a<b & \"c\"", XPaths.evaluate(batch, context, "/feed/r:record[1]/note", String.class));
+					count.addAndGet(XPaths.evaluate(batch, context, "count(/feed/r:record)", Double.class).longValue());
+					sum.addAndGet(XPaths.evaluate(batch, context, "sum(/feed/r:record/@g:id)", Double.class).longValue());
+				} finally {
+					running.decrementAndGet();
+				}
+			});
+			assertEquals(2550, records);
+		} finally {
+			pool.shutdown();
+		}
+		assertEquals(2550, count.get());
+		assertEquals(2550L * 2551 / 2, sum.get());
+		assertTrue(maxRunning.get() <= 2, "max in flight: " + maxRunning.get());
+	}
+
+	@Test
+	public void process_ProcessorFails_ShouldThrowExecutionExceptionAndStopSubmitting() throws Exception {
+		AtomicInteger batches = new AtomicInteger();
+		XMLSplitter splitter = new XMLSplitter("record").withBatchSize(1).withMaxInFlight(1);
+		byte[] xml = "<feed><record>1</record><record>2</record><record>3</record><record>4</record></feed>".getBytes(StandardCharsets.UTF_8);
+		ExecutionException ex = assertThrows(ExecutionException.class, () -> splitter.process(new ByteArrayInputStream(xml), batch -> {
+			batches.incrementAndGet();
+			throw new IllegalStateException("failed");
+		}));
+		assertEquals("failed", ex.getCause().getMessage());
+		assertTrue(batches.get() < 4, "batches: " + batches.get());
+	}
+
+	@Test
+	public void process_NoRecordsGiven_ShouldNotCallProcessor() throws Exception {
+		long records = new XMLSplitter("record").process(new ByteArrayInputStream("<feed><other/></feed>".getBytes(StandardCharsets.UTF_8)),
+				batch -> fail("unexpected batch"));
+		assertEquals(0, records);
+	}
+
+}
@@ -1,8 +1,29 @@
 package de.wazilla.utils.tests.xml;
 
+import de.wazilla.utils.xml.ParsedDocument;
 import de.wazilla.utils.xml.XML;
+import de.wazilla.utils.xml.XPaths;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import java.io.ByteArrayInputStream;
+import java.io.PushbackInputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.namespace.NamespaceContext;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class XMLTest {
 
@@ -13,4 +34,133 @@ public class XMLTest {
 		XML.createNamespaceContext(document);
 	}
 	
+	@Test
+	public void getEncoding_DeclarationGiven_ShouldReturnDeclaredEncoding() {
+		assertEquals("ISO-8859-1", XML.getEncoding("<?xml version='1.0' encoding='ISO-8859-1'?><a/>".getBytes(StandardCharsets.US_ASCII)));
+		assertEquals("windows-1252", XML.getEncoding("<?xml version=\"1.0\"\n  encoding = \"windows-1252\"?><a/>".getBytes(StandardCharsets.US_ASCII)));
+		assertEquals("UTF-8", XML.getEncoding("<a><?pi encoding='ISO-8859-1'?></a>".getBytes(StandardCharsets.US_ASCII)));
+		assertEquals("UTF-8", XML.getEncoding(new byte[0]));
+		assertNull(XML.getEncoding((byte[]) null));
+	}
+
+	@Test
+	public void getEncoding_BomOrWideEncodingGiven_ShouldDetectIt() {
+		assertEquals("UTF-8", XML.getEncoding(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF, '<', 'a', '/', '>'}));
+		assertEquals("UTF-16BE", XML.getEncoding(new byte[]{(byte) 0xFE, (byte) 0xFF, 0, '<'}));
+		assertEquals("UTF-16LE", XML.getEncoding(new byte[]{(byte) 0xFF, (byte) 0xFE, '<', 0}));
+		assertEquals("UTF-32LE", XML.getEncoding(new byte[]{(byte) 0xFF, (byte) 0xFE, 0, 0}));
+		assertEquals("UTF-16LE", XML.getEncoding("<?xml version='1.0' encoding='UTF-16'?><a/>".getBytes(StandardCharsets.UTF_16LE)));
+		assertEquals("UTF-32BE", XML.getEncoding(new byte[]{0, 0, 0, '<'}));
+	}
+
+	@Test
+	public void getEncoding_StreamAndBufferGiven_ShouldNotConsumeInput() throws Exception {
+		byte[] bytes = "<?xml version='1.0' encoding='ISO-8859-15'?><a>äöü</a>".getBytes(StandardCharsets.ISO_8859_1);
+		PushbackInputStream in = new PushbackInputStream(new ByteArrayInputStream(bytes), XML.PROLOG_SIZE);
+		assertEquals("ISO-8859-15", XML.getEncoding(in));
+		assertEquals('<', in.read());
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		assertEquals("ISO-8859-15", XML.getEncoding(buffer));
+		assertEquals(0, buffer.position());
+	}
+
+	@Test
+	public void fromStream_EncodedStreamGiven_ShouldDecodeIt() throws Exception {
+		String xml = "<?xml version='1.0' encoding='ISO-8859-1'?><a>äöü</a>";
+		assertEquals(xml, XML.fromStream(new ByteArrayInputStream(xml.getBytes(StandardCharsets.ISO_8859_1))));
+		byte[] utf16 = ("\uFEFF" + "<a>ä</a>").getBytes(StandardCharsets.UTF_16BE);
+		assertEquals("<a>ä</a>", XML.fromStream(new ByteArrayInputStream(utf16)));
+		assertNull(XML.fromStream(null));
+	}
+
+	@Test
+	public void fromStream_WriterGiven_ShouldWriteDecodedXml() throws Exception {
+		StringBuilder xml = new StringBuilder("<?xml version='1.0'?><list>");
+		for (int i = 0; i < 10_000; i++) {
+			xml.append("<item>€").append(i).append("</item>");
+		}
+		xml.append("</list>");
+		StringWriter out = new StringWriter();
+		long count = XML.fromStream(new ByteArrayInputStream(xml.toString().getBytes(StandardCharsets.UTF_8)), out);
+		assertEquals(xml.length(), count);
+		assertEquals(xml.toString(), out.toString());
+		assertThrows(UnsupportedEncodingException.class, () -> XML.fromStream(new ByteArrayInputStream("<?xml version='1.0' encoding='x-unknown'?><a/>".getBytes(StandardCharsets.US_ASCII))));
+	}
+
+	@Test
+	public void toDocumentWithNamespaces_NamespacesGiven_ShouldEqualCreateNamespaceContext() throws Exception {
+		String xml = XML.fromResource("classpath:/xml/multiple-namespaces-in-whole-document.xml");
+		ParsedDocument parsed = XML.toDocumentWithNamespaces(new InputSource(new StringReader(xml)), false);
+		NamespaceContext expected = XML.createNamespaceContext(XML.toDocument(xml));
+		assertEquals(expected, parsed.getNamespaceContext());
+		assertEquals(expected, XML.createNamespaceContext(new InputSource(new StringReader(xml)), false));
+		assertNotNull(parsed.getDocument().getDocumentElement());
+		for (String redeclared : new String[]{"<a xmlns:z='urn:u' xmlns:b='urn:u'/>", "<a xmlns:p='urn:u' xmlns='urn:u'/>",
+				"<a xmlns='urn:u'><b xmlns:p='urn:u' xmlns:q='urn:v'><c xmlns='urn:v'/></b></a>"}) {
+			NamespaceContext dom = XML.createNamespaceContext(XML.toDocument(redeclared));
+			assertEquals(dom, XML.toDocumentWithNamespaces(new InputSource(new StringReader(redeclared)), false).getNamespaceContext(), redeclared);
+			assertEquals(dom, XML.createNamespaceContext(new InputSource(new StringReader(redeclared)), false), redeclared);
+		}
+		assertEquals("z", XML.createNamespaceContext(XML.toDocument("<a xmlns:z='urn:u' xmlns:b='urn:u'/>")).getPrefix("urn:u"));
+		assertEquals("p", XML.createNamespaceContext(XML.toDocument("<a xmlns:p='urn:u' xmlns='urn:u'/>")).getPrefix("urn:u"));
+		assertEquals("y", XML.createNamespaceContext(XML.toDocument("<a xmlns:x='urn:u'><b xmlns:y='urn:u'/></a>")).getPrefix("urn:u"));
+		assertEquals("y", XML.createNamespaceContext(new InputSource(new StringReader("<a xmlns:x='urn:u'><b xmlns:y='urn:u'/></a>")), false).getPrefix("urn:u"));
+	}
+
+	@Test
+	public void toDocumentWithNamespaces_RootElementOnlyGiven_ShouldIgnoreInnerNamespaces() throws Exception {
+		String xml = "<r:root xmlns:r='urn:r' xmlns='urn:d'><inner xmlns='urn:i'><a:x xmlns:a='urn:a'>1</a:x></inner></r:root>";
+		NamespaceContext all = XML.createNamespaceContext(new InputSource(new StringReader(xml)), false);
+		assertEquals("urn:i", all.getNamespaceURI("ns1"));
+		assertEquals("urn:a", all.getNamespaceURI("a"));
+		NamespaceContext root = XML.createNamespaceContext(new InputSource(new StringReader(xml + "<broken")), true);
+		assertEquals("urn:r", root.getNamespaceURI("r"));
+		assertEquals("urn:d", root.getNamespaceURI("default"));
+		assertEquals("", root.getNamespaceURI("a"));
+		ParsedDocument parsed = XML.toDocumentWithNamespaces(new InputSource(new StringReader(xml)), true);
+		assertEquals("", parsed.getNamespaceContext().getNamespaceURI("a"));
+		assertEquals("1", XPaths.evaluate(parsed.getDocument(), all, "/r:root/ns1:inner/a:x", String.class));
+		assertThrows(SAXException.class, () -> XML.toDocumentWithNamespaces(new InputSource(new StringReader("<!DOCTYPE a><a/>")), false));
+	}
+
+	@Test
+	public void toXPaths_DocumentGiven_ShouldReturnPathsInDocumentOrder() throws Exception {
+		Document document = XML.toDocument("<root xmlns:a='urn:a'><item id='1'/><other/><item id='2'><a:x/>text<a:x a:k='v'/></item></root>");
+		Map<String, Node> paths = new LinkedHashMap<>();
+		XML.toXPaths(document, (node, path) -> paths.put(path, node));
+		assertEquals(Arrays.asList("/root", "/root/item[1]", "/root/item[1]/@id", "/root/other[1]", "/root/item[2]",
+				"/root/item[2]/@id", "/root/item[2]/a:x[1]", "/root/item[2]/a:x[2]", "/root/item[2]/a:x[2]/@a:k"), new ArrayList<>(paths.keySet()));
+		NamespaceContext context = XML.createNamespaceContext(document);
+		for (Map.Entry<String, Node> entry : paths.entrySet()) {
+			assertSame(entry.getValue(), XPaths.evaluate(document, context, entry.getKey(), Node.class), entry.getKey());
+		}
+	}
+
+	@Test
+	public void toXPaths_InnerElementGiven_ShouldStartWithAncestorPath() throws Exception {
+		Document document = XML.toDocument("<root><item/><item><x b='1'/></item></root>");
+		Node item = XPaths.evaluate(document, null, "/root/item[2]", Node.class);
+		List<String> paths = new ArrayList<>();
+		XML.toXPaths(item, (node, path) -> paths.add(path));
+		assertEquals(Arrays.asList("/root/item[2]", "/root/item[2]/x[1]", "/root/item[2]/x[1]/@b"), paths);
+	}
+
+	@Test
+	public void toXPaths_DefaultNamespaceGiven_ShouldUseContextPrefixes() throws Exception {
+		Document document = XML.toDocument("<root xmlns='urn:d' xmlns:a='urn:a'><item/><b:item xmlns:b='urn:d' a:id='1'/><other xmlns='urn:o'/><item/></root>");
+		Map<String, Node> paths = new LinkedHashMap<>();
+		XML.toXPaths(document, (node, path) -> paths.put(path, node));
+		// urn:d ist zuletzt mit Prefix b deklariert
+		assertEquals(Arrays.asList("/b:root", "/b:root/b:item[1]", "/b:root/b:item[2]",
+				"/b:root/b:item[2]/@a:id", "/b:root/ns1:other[1]", "/b:root/b:item[3]"), new ArrayList<>(paths.keySet()));
+		NamespaceContext context = XML.createNamespaceContext(document);
+		for (Map.Entry<String, Node> entry : paths.entrySet()) {
+			assertSame(entry.getValue(), XPaths.evaluate(document, context, entry.getKey(), Node.class), entry.getKey());
+		}
+		List<String> unmapped = new ArrayList<>();
+		XML.toXPaths(document.getDocumentElement().getLastChild(), null, (node, path) -> unmapped.add(path));
+		assertEquals("/*[local-name()='root' and namespace-uri()='urn:d']/*[local-name()='item' and namespace-uri()='urn:d'][3]", unmapped.get(0));
+		assertSame(document.getDocumentElement().getLastChild(), XPaths.evaluate(document, null, unmapped.get(0), Node.class));
+	}
+
 }
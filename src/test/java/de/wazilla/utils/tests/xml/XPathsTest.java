@@ -0,0 +1,87 @@
+package de.wazilla.utils.tests.xml;
+
+import de.wazilla.utils.Throwables;
+import de.wazilla.utils.xml.CompiledXPath;
+import de.wazilla.utils.xml.XML;
+import de.wazilla.utils.xml.XPaths;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.xpath.XPathExpressionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class XPathsTest {
+
+	@Test
+	public void evaluate_ValidExpressionGiven_ShouldReturnValue() throws Exception {
+		Document document = XML.toDocument("<root><a>1</a><a>2</a></root>");
+		assertEquals("2", XPaths.evaluate(document, null, "/root/a[2]", String.class));
+		assertEquals(Double.valueOf(2), XPaths.evaluate(document, null, "count(/root/a)", Double.class));
+	}
+
+	@Test
+	public void evaluate_InvalidExpressionGiven_ShouldThrowExceptionWithCause() throws Exception {
+		Document document = XML.toDocument("<root/>");
+		XPathExpressionException ex = assertThrows(XPathExpressionException.class, () -> XPaths.evaluate(document, null, "/root[", String.class, false));
+		assertTrue(ex.getStackTrace().length > 0);
+		XPathExpressionException stackless = assertThrows(XPathExpressionException.class, () -> XPaths.evaluate(document, null, "/root[", String.class, true));
+		assertEquals(0, stackless.getStackTrace().length);
+		assertEquals("Error evaluating /root[", stackless.getMessage());
+		assertNotSame(stackless, Throwables.getRootCause(stackless));
+	}
+
+	@Test
+	public void compile_SameExpressionAndContextGiven_ShouldReturnCachedInstance() throws Exception {
+		Document document = XML.toDocument("<p:root xmlns:p='urn:p'><p:a>x</p:a></p:root>");
+		NamespaceContext namespaceContext = XML.createNamespaceContext(document);
+		CompiledXPath compiled = XPaths.compile("/p:root/p:a", namespaceContext);
+		assertSame(compiled, XPaths.compile("/p:root/p:a", namespaceContext));
+		assertEquals("x", compiled.evaluate(document, String.class));
+		assertEquals("x", XPaths.evaluate(document, namespaceContext, "/p:root/p:a", String.class));
+		assertThrows(XPathExpressionException.class, () -> XPaths.compile("/p:root[", namespaceContext));
+		NamespaceContext equalContext = XML.createNamespaceContext(XML.toDocument("<p:other xmlns:p='urn:p'/>"));
+		assertSame(compiled, XPaths.compile("/p:root/p:a", equalContext));
+	}
+
+	@Test
+	public void compile_ConcurrentMissesGiven_ShouldCompileOnce() throws Exception {
+		String expression = "/root/b[" + System.nanoTime() + "]";
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<CompiledXPath>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> XPaths.compile(expression, null)));
+			}
+			for (Future<CompiledXPath> result : results) {
+				assertSame(results.get(0).get(), result.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void evaluate_ManyThreadsGiven_ShouldShareCompiledExpressions() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				String xml = "<root><a>" + i + "</a></root>";
+				results.add(executor.submit(() -> XPaths.evaluate(XML.toDocument(xml), null, "/root/a", String.class)));
+			}
+			for (int i = 0; i < results.size(); i++) {
+				assertEquals(String.valueOf(i), results.get(i).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+}